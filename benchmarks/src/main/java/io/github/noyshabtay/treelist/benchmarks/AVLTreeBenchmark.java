@@ -0,0 +1,87 @@
+package io.github.noyshabtay.treelist.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.noyshabtay.treelist.AVLTree;
+
+/**
+ *
+ * AVLTreeBenchmark
+ *
+ * Point operations on a key-ordered AVLTree.
+ * Throughput gives ops/time, sample time gives the latency percentiles.
+ * Each insertDelete call inserts an absent key and deletes it again, so the size stays put.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AVLTreeBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int size;
+
+	@Param({"SEQUENTIAL", "RANDOM", "CLUSTERED", "FRONT", "BACK"})
+	public Workload.Pattern pattern;
+
+	@Param({"DENSE", "UNIFORM", "CLUSTERED"})
+	public Workload.Distribution distribution;
+
+	private AVLTree tree;
+	private int[] probes; // keys in access order.
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		int[] keys = Workload.keys(distribution, size, 42);
+		tree = AVLTree.fromSorted(keys, Workload.infos(size));
+		int[] pos = Workload.positions(pattern, size, 43);
+		probes = new int[Workload.ACCESSES];
+		for (int j = 0; j < probes.length; j++)
+			probes[j] = keys[pos[j]];
+	}
+
+	private int next()
+	{
+		int k = probes[cursor];
+		cursor = (cursor + 1) & Workload.MASK;
+		return k;
+	}
+
+	@Benchmark
+	public String search()
+	{
+		return tree.search(next());
+	}
+
+	@Benchmark
+	public String searchMiss()
+	{
+		return tree.search(next() + 1);
+	}
+
+	@Benchmark
+	public int insertDelete()
+	{
+		int k = next() + 1;
+		tree.insert(k, "x");
+		return tree.delete(k);
+	}
+}
@@ -0,0 +1,80 @@
+package io.github.noyshabtay.treelist.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.noyshabtay.treelist.AVLTree;
+
+/**
+ *
+ * AVLTreeScanBenchmark
+ *
+ * Whole-tree and finger operations, which do not depend on an access pattern.
+ * The parallel exports run on the common ForkJoinPool; vary its size with
+ * -Djava.util.concurrent.ForkJoinPool.common.parallelism=N.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AVLTreeScanBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int size;
+
+	@Param({"DENSE", "UNIFORM", "CLUSTERED"})
+	public Workload.Distribution distribution;
+
+	private AVLTree tree;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		tree = AVLTree.fromSorted(Workload.keys(distribution, size, 42), Workload.infos(size));
+	}
+
+	@Benchmark
+	public String min()
+	{
+		return tree.min();
+	}
+
+	@Benchmark
+	public String max()
+	{
+		return tree.max();
+	}
+
+	@Benchmark
+	public int[] keysToArray()
+	{
+		return tree.keysToArray();
+	}
+
+	@Benchmark
+	public int[] parallelKeysToArray()
+	{
+		return tree.parallelKeysToArray();
+	}
+
+	@Benchmark
+	public int[] parallelKeyStream()
+	{
+		return tree.keyStream().parallel().toArray();
+	}
+}
@@ -0,0 +1,79 @@
+package io.github.noyshabtay.treelist.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.noyshabtay.treelist.Monoid;
+import io.github.noyshabtay.treelist.TreeList;
+
+/**
+ *
+ * AggregateBenchmark
+ *
+ * The sum of the keys over a random range of positions of a TreeList:
+ * aggregate on a list measured by Monoid.sum, against a forEach scan.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AggregateBenchmark {
+
+	@Param({"100000", "1000000"})
+	public int size;
+
+	private TreeList list;
+	private int[] from;
+	private int[] to;
+	private int cursor;
+	private long sum;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		list = TreeList.fromArray(Monoid.sum(Monoid.Measure.KEY),
+				Workload.keys(Workload.Distribution.UNIFORM, size, 42), Workload.infos(size));
+		int[] a = Workload.positions(Workload.Pattern.RANDOM, size, 43);
+		int[] b = Workload.positions(Workload.Pattern.RANDOM, size, 44);
+		from = new int[Workload.ACCESSES];
+		to = new int[Workload.ACCESSES];
+		for (int j = 0; j < from.length; j++)
+		{
+			from[j] = Math.min(a[j], b[j]);
+			to[j] = Math.max(a[j], b[j]);
+		}
+	}
+
+	@Benchmark
+	public long aggregate()
+	{
+		int j = cursor;
+		cursor = (cursor + 1) & Workload.MASK;
+		return list.aggregate(from[j], to[j]);
+	}
+
+	@Benchmark
+	public long scan()
+	{
+		int j = cursor;
+		cursor = (cursor + 1) & Workload.MASK;
+		sum = 0;
+		list.forEach(from[j], to[j], (k, s) -> sum += k);
+		return sum;
+	}
+}
@@ -0,0 +1,108 @@
+package io.github.noyshabtay.treelist.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.noyshabtay.treelist.AVLTree;
+import io.github.noyshabtay.treelist.RedBlackTree;
+import io.github.noyshabtay.treelist.WAVLTree;
+
+/**
+ *
+ * BalanceBenchmark
+ *
+ * The balancing schemes head to head: AVLTree, WAVLTree and RedBlackTree.
+ * Each deleteInsert call deletes at one random position and inserts at another,
+ * so the size stays put. The Rotations counters report the rotations those
+ * calls did, per insert and per delete (divide by pairs), next to the latency.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BalanceBenchmark {
+
+	@Param({"10000", "100000", "1000000"})
+	public int size;
+
+	@Param({"AVL", "WAVL", "RED_BLACK"})
+	public String scheme;
+
+	private AVLTree avl;
+	private WAVLTree wavl;
+	private RedBlackTree redBlack;
+	private int[] from;
+	private int[] to;
+	private int cursor;
+
+	/**
+	 * Rotation counts, reset by JMH for every iteration.
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Rotations {
+		public long insertRotations;
+		public long deleteRotations;
+		public long pairs;
+	}
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		int[] keys = Workload.keys(Workload.Distribution.DENSE, size, 42);
+		String[] infos = Workload.infos(size);
+		if (scheme.equals("AVL"))
+			avl = AVLTree.listFromArray(keys, infos);
+		else if (scheme.equals("WAVL"))
+			wavl = WAVLTree.fromArray(keys, infos);
+		else
+			redBlack = RedBlackTree.fromArray(keys, infos);
+		// 1-based ranks: delete from a tree of size items, then insert into size - 1.
+		from = Workload.positions(Workload.Pattern.RANDOM, size, 43);
+		to = Workload.positions(Workload.Pattern.RANDOM, size, 44);
+	}
+
+	@Benchmark
+	public int deleteInsert(Rotations r)
+	{
+		int j = cursor;
+		cursor = (cursor + 1) & Workload.MASK;
+		int d;
+		int i;
+		if (avl != null)
+		{
+			d = avl.listDelete(from[j] + 1);
+			i = avl.listInsert(to[j] + 1, j, "x");
+		}
+		else if (wavl != null)
+		{
+			d = wavl.listDelete(from[j] + 1);
+			i = wavl.listInsert(to[j] + 1, j, "x");
+		}
+		else
+		{
+			d = redBlack.listDelete(from[j] + 1);
+			i = redBlack.listInsert(to[j] + 1, j, "x");
+		}
+		r.deleteRotations += d;
+		r.insertRotations += i;
+		r.pairs++;
+		return d + i;
+	}
+}
@@ -0,0 +1,124 @@
+package io.github.noyshabtay.treelist.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.noyshabtay.treelist.AVLTree;
+import io.github.noyshabtay.treelist.ConcurrentAVLTree;
+
+/**
+ *
+ * ConcurrentAVLTreeBenchmark
+ *
+ * A 95/5 read/write mix: 19 reader threads run search, 1 writer thread inserts
+ * and deletes an absent key. "optimistic" runs on ConcurrentAVLTree, "serialized"
+ * on an AVLTree behind one monitor, the setup this replaces.
+ * To see read throughput scale with cores, keep the 19:1 ratio and vary the
+ * thread count, e.g. -tg 19,1 / -tg 38,2 / -tg 76,4.
+ *
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ConcurrentAVLTreeBenchmark {
+
+	@Param({"1000", "100000", "10000000"})
+	public int size;
+
+	private int[] keys;
+	private ConcurrentAVLTree concurrent;
+	private AVLTree serialized;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		keys = Workload.keys(Workload.Distribution.UNIFORM, size, 42);
+		String[] infos = Workload.infos(size);
+		serialized = AVLTree.fromSorted(keys, infos);
+		concurrent = new ConcurrentAVLTree();
+		for (int j = 0; j < size; j++)
+			concurrent.insert(keys[j], infos[j]);
+	}
+
+	/**
+	 * Per-thread probe sequence.
+	 */
+	@State(Scope.Thread)
+	public static class Probe {
+		private int[] positions;
+		private int cursor;
+
+		@Setup(Level.Trial)
+		public void setup(ConcurrentAVLTreeBenchmark b)
+		{
+			positions = Workload.positions(Workload.Pattern.RANDOM, b.size, Thread.currentThread().getId());
+		}
+
+		int next(int[] keys)
+		{
+			int k = keys[positions[cursor]];
+			cursor = (cursor + 1) & Workload.MASK;
+			return k;
+		}
+	}
+
+	@Benchmark
+	@Group("optimistic")
+	@GroupThreads(19)
+	public String optimisticRead(Probe p)
+	{
+		return concurrent.search(p.next(keys));
+	}
+
+	@Benchmark
+	@Group("optimistic")
+	@GroupThreads(1)
+	public int optimisticWrite(Probe p)
+	{
+		int k = p.next(keys) + 1;
+		concurrent.insert(k, "x");
+		return concurrent.delete(k);
+	}
+
+	@Benchmark
+	@Group("serialized")
+	@GroupThreads(19)
+	public String serializedRead(Probe p)
+	{
+		int k = p.next(keys);
+		synchronized (serialized)
+		{
+			return serialized.search(k);
+		}
+	}
+
+	@Benchmark
+	@Group("serialized")
+	@GroupThreads(1)
+	public int serializedWrite(Probe p)
+	{
+		int k = p.next(keys) + 1;
+		synchronized (serialized)
+		{
+			serialized.insert(k, "x");
+			return serialized.delete(k);
+		}
+	}
+}
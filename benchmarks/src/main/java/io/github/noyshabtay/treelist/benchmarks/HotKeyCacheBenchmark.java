@@ -0,0 +1,70 @@
+package io.github.noyshabtay.treelist.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.noyshabtay.treelist.AVLTree;
+import io.github.noyshabtay.treelist.HotKeyCache;
+
+/**
+ *
+ * HotKeyCacheBenchmark
+ *
+ * search on a skewed key stream (Workload.Pattern.HOT: 80% of lookups on 1% of the keys),
+ * on a plain tree (OFF) and behind a HotKeyCache of each policy holding capacity keys.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class HotKeyCacheBenchmark {
+
+	@Param({"100000", "1000000", "10000000"})
+	public int size;
+
+	@Param({"OFF", "LRU", "CLOCK"})
+	public String cache;
+
+	@Param({"1024", "16384"})
+	public int capacity;
+
+	private AVLTree tree;
+	private int[] probes;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		int[] keys = Workload.keys(Workload.Distribution.UNIFORM, size, 42);
+		tree = AVLTree.fromSorted(keys, Workload.infos(size));
+		int[] pos = Workload.positions(Workload.Pattern.HOT, size, 43);
+		probes = new int[Workload.ACCESSES];
+		for (int j = 0; j < probes.length; j++)
+			probes[j] = keys[pos[j]];
+		if (!cache.equals("OFF"))
+			tree.setCache(new HotKeyCache(capacity, HotKeyCache.Policy.valueOf(cache)));
+	}
+
+	@Benchmark
+	public String search()
+	{
+		int k = probes[cursor];
+		cursor = (cursor + 1) & Workload.MASK;
+		return tree.search(k);
+	}
+}
@@ -0,0 +1,91 @@
+package io.github.noyshabtay.treelist.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.noyshabtay.treelist.AVLTree;
+import io.github.noyshabtay.treelist.Journal;
+
+/**
+ *
+ * JournalBenchmark
+ *
+ * The cost of journaling: insertDelete (as in AVLTreeBenchmark) on a plain tree (OFF)
+ * and on a tree journaled under each sync policy, with groupSize records per group commit.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class JournalBenchmark {
+
+	@Param({"100000", "1000000"})
+	public int size;
+
+	@Param({"OFF", "NONE", "PERIODIC", "EVERY_GROUP"})
+	public String journal;
+
+	@Param({"256"})
+	public int groupSize;
+
+	private AVLTree tree;
+	private Journal log;
+	private Path file;
+	private int[] probes;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException
+	{
+		int[] keys = Workload.keys(Workload.Distribution.UNIFORM, size, 42);
+		tree = AVLTree.fromSorted(keys, Workload.infos(size));
+		int[] pos = Workload.positions(Workload.Pattern.RANDOM, size, 43);
+		probes = new int[Workload.ACCESSES];
+		for (int j = 0; j < probes.length; j++)
+			probes[j] = keys[pos[j]];
+		if (!journal.equals("OFF"))
+		{
+			file = Files.createTempFile("treelist", ".journal");
+			log = Journal.open(file, groupSize, Journal.SyncPolicy.valueOf(journal), 100);
+			tree.setJournal(log);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException
+	{
+		if (log != null)
+		{
+			log.close();
+			Files.delete(file);
+		}
+	}
+
+	@Benchmark
+	public int insertDelete()
+	{
+		int k = probes[cursor] + 1;
+		cursor = (cursor + 1) & Workload.MASK;
+		tree.insert(k, "x");
+		return tree.delete(k);
+	}
+}
@@ -0,0 +1,99 @@
+package io.github.noyshabtay.treelist.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.noyshabtay.treelist.AVLTree;
+
+/**
+ *
+ * SetOperationBenchmark
+ *
+ * Merging a tree of other keys into a tree of size keys: AVLTree.union and
+ * AVLTree.difference, against a keysToArray dump with one insert (or delete) per key.
+ * Half of the other keys are in the big tree, half are new.
+ * Both trees are rebuilt before every call, since the operations consume them.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SetOperationBenchmark {
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"1000", "100000", "1000000"})
+	public int other;
+
+	private int[] keys;
+	private String[] infos;
+	private int[] otherKeys;
+	private String[] otherInfos;
+	private AVLTree big;
+	private AVLTree small;
+
+	@Setup(Level.Trial)
+	public void setupTrial()
+	{
+		keys = Workload.keys(Workload.Distribution.UNIFORM, size, 42);
+		infos = Workload.infos(size);
+		otherKeys = new int[other];
+		int stride = size / other;
+		for (int j = 0; j < other; j++) // every other one is odd, so not in keys.
+			otherKeys[j] = keys[j * stride] + (j & 1);
+		otherInfos = Workload.infos(other);
+	}
+
+	@Setup(Level.Iteration)
+	public void setupIteration()
+	{
+		big = AVLTree.fromSorted(keys, infos);
+		small = AVLTree.fromSorted(otherKeys, otherInfos);
+	}
+
+	@Benchmark
+	public AVLTree union()
+	{
+		return AVLTree.union(big, small, AVLTree.Collision.LEFT); // as insert: the existing item stays.
+	}
+
+	@Benchmark
+	public AVLTree insertLoop()
+	{
+		int[] ks = small.keysToArray();
+		String[] in = small.infoToArray();
+		for (int j = 0; j < ks.length; j++)
+			big.insert(ks[j], in[j]);
+		return big;
+	}
+
+	@Benchmark
+	public AVLTree difference()
+	{
+		return AVLTree.difference(big, small);
+	}
+
+	@Benchmark
+	public AVLTree deleteLoop()
+	{
+		for (int k : small.keysToArray())
+			big.delete(k);
+		return big;
+	}
+}
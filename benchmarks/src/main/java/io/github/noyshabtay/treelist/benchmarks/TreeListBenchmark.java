@@ -0,0 +1,78 @@
+package io.github.noyshabtay.treelist.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.noyshabtay.treelist.Item;
+import io.github.noyshabtay.treelist.TreeList;
+
+/**
+ *
+ * TreeListBenchmark
+ *
+ * Positional operations on a TreeList.
+ * Each insertDelete call inserts at a position and deletes it again, so the size stays put.
+ * The backend parameter runs the same workload on each TreeList.Backend.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TreeListBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int size;
+
+	@Param({"SEQUENTIAL", "RANDOM", "CLUSTERED", "FRONT", "BACK"})
+	public Workload.Pattern pattern;
+
+	@Param({"AVL", "ARRAY_AVL", "B_PLUS", "WAVL", "RED_BLACK"})
+	public TreeList.Backend backend;
+
+	private TreeList list;
+	private int[] positions;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		list = TreeList.fromArray(backend, Workload.keys(Workload.Distribution.DENSE, size, 42), Workload.infos(size));
+		positions = Workload.positions(pattern, size, 43);
+	}
+
+	private int next()
+	{
+		int i = positions[cursor];
+		cursor = (cursor + 1) & Workload.MASK;
+		return i;
+	}
+
+	@Benchmark
+	public Item retrieve()
+	{
+		return list.retrieve(next());
+	}
+
+	@Benchmark
+	public int insertDelete()
+	{
+		int i = next();
+		list.insert(i, i, "x");
+		return list.delete(i);
+	}
+}
@@ -0,0 +1,132 @@
+package io.github.noyshabtay.treelist.benchmarks;
+
+import java.util.SplittableRandom;
+
+/**
+ *
+ * Workload
+ *
+ * Key sets and access sequences shared by the benchmarks.
+ * Everything is generated once per trial, so the measured loops only
+ * read precomputed arrays.
+ *
+ */
+public final class Workload {
+
+	/**
+	 * Number of precomputed accesses; benchmarks cycle through them.
+	 */
+	public static final int ACCESSES = 1 << 16;
+	public static final int MASK = ACCESSES - 1;
+
+	/**
+	 * The order in which positions (ranks) are visited.
+	 */
+	public enum Pattern {
+		SEQUENTIAL, // 0, 1, 2, ... wrapping around.
+		RANDOM, // uniform over all positions.
+		CLUSTERED, // a random walk taking small steps around the last position.
+		FRONT, // the first 64 positions.
+		BACK, // the last 64 positions.
+		HOT // 80% of accesses on a fixed random 1% of the positions, the rest uniform.
+	}
+
+	/**
+	 * How the keys held by a tree are spread over the int range.
+	 */
+	public enum Distribution {
+		DENSE, // consecutive keys.
+		UNIFORM, // random gaps over most of the int range.
+		CLUSTERED // runs of 64 consecutive keys separated by large random gaps.
+	}
+
+	private Workload()
+	{
+	}
+
+	/**
+	 * public static int[] keys(Distribution d, int n, long seed)
+	 *
+	 * Returns n distinct, even keys in ascending order.
+	 * Odd keys (key + 1) are guaranteed absent, for insert/delete benchmarks.
+	 */
+	public static int[] keys(Distribution d, int n, long seed)
+	{
+		SplittableRandom rnd = new SplittableRandom(seed);
+		int[] keys = new int[n];
+		long k = -(1L << 29);
+		long span = (1L << 30) / Math.max(n, 1); // average gap keeping the keys inside 31 bits.
+		for (int i = 0; i < n; i++)
+		{
+			switch (d)
+			{
+			case DENSE:
+				k++;
+				break;
+			case UNIFORM:
+				k += 1 + rnd.nextLong(Math.max(1, 2 * span - 1));
+				break;
+			case CLUSTERED:
+				k += (i % 64 == 0) ? 1 + rnd.nextLong(Math.max(1, 128 * span - 1)) : 1;
+				break;
+			}
+			keys[i] = (int) (2 * k);
+		}
+		return keys;
+	}
+
+	/**
+	 * public static int[] positions(Pattern p, int n, long seed)
+	 *
+	 * Returns ACCESSES positions in [0, n) visited in pattern p.
+	 */
+	public static int[] positions(Pattern p, int n, long seed)
+	{
+		SplittableRandom rnd = new SplittableRandom(seed);
+		int[] pos = new int[ACCESSES];
+		int window = Math.min(n, 64);
+		int cur = rnd.nextInt(n);
+		int[] hot = new int[Math.max(1, n / 100)];
+		for (int j = 0; j < hot.length; j++)
+			hot[j] = rnd.nextInt(n);
+		for (int j = 0; j < ACCESSES; j++)
+		{
+			switch (p)
+			{
+			case SEQUENTIAL:
+				pos[j] = j % n;
+				break;
+			case RANDOM:
+				pos[j] = rnd.nextInt(n);
+				break;
+			case CLUSTERED:
+				cur = Math.floorMod(cur + rnd.nextInt(17) - 8, n);
+				pos[j] = cur;
+				break;
+			case FRONT:
+				pos[j] = rnd.nextInt(window);
+				break;
+			case BACK:
+				pos[j] = n - 1 - rnd.nextInt(window);
+				break;
+			case HOT:
+				pos[j] = (rnd.nextInt(5) < 4) ? hot[rnd.nextInt(hot.length)] : rnd.nextInt(n);
+				break;
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * public static String[] infos(int n)
+	 *
+	 * Returns n short info strings.
+	 */
+	public static String[] infos(int n)
+	{
+		String[] infos = new String[n];
+		for (int i = 0; i < n; i++)
+			infos[i] = Integer.toString(i);
+		return infos;
+	}
+}
@@ -0,0 +1,3312 @@
+package io.github.noyshabtay.treelist;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ *
+ * AVLTree
+ *
+ * An implementation of a AVL Tree with
+ * distinct integer keys and info
+ *
+ * Run with -Dtreelist.threaded=true and every node is also threaded: it links
+ * to its in-order neighbours (AVLNode.getPrev/getNext). Each structural change
+ * relinks O(1) threads, so findSuccessor, findPredecessor and the iterators take
+ * one step per item instead of climbing. Threads are off by default: a copying
+ * collector follows them when it moves a tree, and can scatter a large one.
+ *
+ * A tree created with a Monoid is measured: each node also caches the combined
+ * measure of its sub-tree, kept up to date wherever sizes are, so aggregate and
+ * aggregateByKey run in O(log n).
+ *
+ */
+public class AVLTree implements Iterable<AVLTree.IAVLNode> {
+
+	/**
+	 * Whether nodes keep next/prev threads; set by -Dtreelist.threaded=true.
+	 */
+	public static final boolean THREADED = Boolean.getBoolean("treelist.threaded");
+
+	/**
+	 * Sub-trees up to this size are walked by a single fork/join task.
+	 */
+	private static final int PARALLEL_GRAIN = 1 << 13;
+
+	/**
+	 * Which item union and intersection keep for a key both trees hold.
+	 */
+	public enum Collision {
+		/** Keeps the item of the first tree. */
+		LEFT,
+		/** Keeps the item of the second tree. */
+		RIGHT
+	}
+	
+	private IAVLNode root = null;
+	private int size = 0;
+	private IAVLNode minimum;
+	private IAVLNode maximum;
+	private IAVLNode finger; // last node reached by a positional operation.
+	private int fingerRank;
+	private final AVLTreeMetrics metrics = AVLTreeMetrics.ENABLED ? new AVLTreeMetrics() : null;
+	private Journal journal; // null unless journaling.
+	private HotKeyCache cache; // null unless caching search.
+	private final InfoArena arena; // null when info is kept as String objects.
+	private final Monoid monoid; // null unless the tree is measured.
+	private boolean keyOrdered = true; // false once a list operation may have put the keys out of order.
+
+	public AVLTree()
+	{
+		this((InfoArena) null);
+	}
+
+	/**
+	 * public AVLTree(InfoArena arena)
+	 *
+	 * Creates an empty tree whose nodes keep their info in arena (see InfoArena),
+	 * or as plain Strings if arena is null.
+	 */
+	public AVLTree(InfoArena arena)
+	{
+		this(arena, null);
+	}
+
+	/**
+	 * public AVLTree(Monoid monoid)
+	 *
+	 * Creates an empty measured tree: its nodes cache the monoid's measure of
+	 * their sub-trees, for aggregate and aggregateByKey.
+	 * Measured trees keep their info as plain Strings.
+	 */
+	public AVLTree(Monoid monoid)
+	{
+		this(null, monoid);
+	}
+
+	private AVLTree(InfoArena arena, Monoid monoid)
+	{
+		this.arena = arena;
+		this.monoid = monoid;
+	}
+
+	/**
+	 * public Monoid monoid()
+	 *
+	 * Returns the monoid the tree is measured by, or null if it is not measured.
+	 */
+	public Monoid monoid()
+	{
+		return monoid;
+	}
+	
+  /**
+   * public boolean empty()
+   *
+   * returns true if and only if the tree is empty
+   *
+   */
+	public boolean empty()
+	{
+		return (root == null);
+	}
+
+ /**
+   * public String search(int k)
+   *
+   * returns the info of an item with key k if it exists in the tree
+   * otherwise, returns null
+   */
+  public String search(int k)
+  {
+	  long start = AVLTreeMetrics.ENABLED ? metrics.begin() : 0;
+	  IAVLNode node = lookup(k);
+	  if (AVLTreeMetrics.ENABLED)
+		  metrics.end(AVLTreeMetrics.Operation.SEARCH, start, heightOf(root));
+	  if (node != null)
+		  return node.getValue();
+	  return null;
+  }
+  
+  /**
+   * public void setJournal(Journal journal)
+   *
+   * Logs every later insert, delete, listInsert, listDelete, insertAll, deleteAll, listInsertAll,
+   * listDeleteRange, split, listSplit and listConcat to journal before running it (see Journal),
+   * or stops journaling if journal is null.
+   * The journal must start from this tree's current state (see Journal.recover).
+   */
+  public void setJournal(Journal journal)
+  {
+	  this.journal = journal;
+  }
+
+  /**
+   * public void setCache(HotKeyCache cache)
+   *
+   * Puts cache in front of search and searchInto, or removes the cache if null.
+   * The cache is emptied first; it must not serve another tree at the same time.
+   */
+  public void setCache(HotKeyCache cache)
+  {
+	  if (cache != null)
+		  cache.clear();
+	  this.cache = cache;
+  }
+
+  /**
+   * private IAVLNode lookup(int k)
+   *
+   * Returns the node with key k through the cache, if there is one, or by searchNode.
+   */
+  private IAVLNode lookup(int k)
+  {
+	  if (cache == null)
+		  return searchNode(k);
+	  IAVLNode node = cache.get(k);
+	  if (node == null)
+	  {
+		  node = searchNode(k);
+		  if (node != null)
+			  cache.put(k, node);
+	  }
+	  return node;
+  }
+
+  /**
+   * public AVLTreeMetrics.Snapshot metrics()
+   *
+   * Returns a copy of this tree's operation metrics and current height,
+   * or null if metrics are disabled (run with -Dtreelist.metrics=true to enable them).
+   */
+  public AVLTreeMetrics.Snapshot metrics()
+  {
+	  if (!AVLTreeMetrics.ENABLED)
+		  return null;
+	  return metrics.snapshot(heightOf(root));
+  }
+
+  /**
+   * public boolean searchInto(int k, StringBuilder dst)
+   *
+   * Appends the info of the item with key k to dst, without creating a String
+   * when the tree keeps its info in an InfoArena.
+   * returns true if the key exists in the tree (a null info appends nothing).
+   */
+  public boolean searchInto(int k, StringBuilder dst)
+  {
+	  IAVLNode node = lookup(k);
+	  if (node == null)
+		  return false;
+	  ((AVLNode) node).appendValueTo(dst);
+	  return true;
+  }
+
+  /**
+   * private IAVLNode searchNode(int k)
+   *
+   * Utility function for searching node with key k in the tree.
+   * Performing a regular BST tree walk.
+   */
+  private IAVLNode searchNode(int k)
+  {
+	  IAVLNode node = root;
+	  int depth = 0;
+	  while (node != null)
+	  {
+		  if (AVLTreeMetrics.ENABLED)
+			  depth++;
+		  if (node.getKey() == k)
+			  break;
+		  else if (node.getKey() < k)
+			  node = node.getRight();
+		  else
+			  node = node.getLeft();
+	  }
+	  if (AVLTreeMetrics.ENABLED)
+		  metrics.descent(depth);
+	  return node;
+  }
+
+  /**
+   * public int insert(int k, String i)
+   *
+   * inserts an item with key k and info i to the AVL tree.
+   * the tree must remain valid (keep its invariants).
+   * returns the number of rebalancing operations, or 0 if no rebalancing operations were necessary.
+   * returns -1 if an item with key k already exists in the tree.
+   */
+   public int insert(int k, String i)
+   {
+	   if (journal != null)
+		   journal.insert(k, i);
+	   if (!AVLTreeMetrics.ENABLED)
+		   return insertNode(k, i);
+	   long start = metrics.begin();
+	   int cnt = insertNode(k, i);
+	   metrics.end(AVLTreeMetrics.Operation.INSERT, start, heightOf(root));
+	   return cnt;
+   }
+   /**
+    * private int insertNode(int k, String i)
+    *
+    * The body of insert, without the metrics bracket.
+    */
+   private int insertNode(int k, String i) {   
+	   // normal BST insertion.
+	   IAVLNode y = null;
+	   IAVLNode x = root;
+	   while (x != null) //regular BST tree walk.
+	   {
+		   y = x;
+		   if (k == x.getKey())
+			   return -1; // terminate.
+		   else if (k < x.getKey())
+			   x = x.getLeft();
+		   else
+			   x = x.getRight();
+	   }
+	   IAVLNode z = newNode(k, i, arena, monoid); // only now: the arena keeps whatever it is given.
+	   z.setParent(y);
+	   if (y == null)
+	   {
+		   root = z; // tree was empty.
+		   minimum = z;
+		   maximum = z;
+		   this.size++; //updates tree size.
+		   return 0;
+	   }
+	   else if (z.getKey() < y.getKey()) // k is smaller key than it's parent, thus z should be a left son.
+	   {
+		   y.setLeft(z);
+		   link(((AVLNode) y).prev, z); // z goes between y's predecessor and y.
+		   link(z, y);
+	   }
+	   else // k is bigger key than it's parent, thus z should be a right son.
+	   {
+		   y.setRight(z);
+		   link(z, ((AVLNode) y).next); // z goes between y and y's successor.
+		   link(y, z);
+	   }
+	   this.size++; //updates tree size.
+	   if (finger != null && k < finger.getKey()) // finger moved one rank right.
+		   fingerRank++;
+	   
+	   // updates max & min.
+	   if (k < this.minimum.getKey())
+		   this.minimum = z;
+	   else if (k > this.maximum.getKey())
+		   this.maximum = z;
+	   
+	   // update loop.
+	   int cnt = 0;
+	   while (y != null)
+	   {
+		   if (AVLTreeMetrics.ENABLED)
+			   metrics.updateStep();
+		   ((AVLNode) y).setSize(updateSize(y));
+		   ((AVLNode) y).updateMeasure();
+		   int oldHeight = y.getHeight();
+		   y.setHeight(updateHeight(y));
+		   int BF = getBalance(y);
+		   if ((Math.abs(BF) < 2) && (oldHeight == y.getHeight())) // No more changes needed. Still runs for updating heights.
+		   {
+			   y = y.getParent();
+			   continue;
+		   }
+		   else if (Math.abs(BF) < 2) // continue checking this node's ancestor.
+		   {
+			   y = y.getParent();
+			   continue;
+		   }
+		   else // Houston we have a problem. Rotation is needed.
+		   {
+			   cnt += rotationsManager(y, BF);
+			   y = y.getParent();
+		   }
+	   }
+	   return cnt;
+	   
+	   
+   }
+   /**
+    * public int listInsert(int i, int k, String s)
+    * 
+    * Used for inserting a new item to a list implemented with an AVLTree
+    * Inserts an item with key k and value s as the item ranked i-th in the tree 
+    * returns the number of rebalancing operations, or 0 if no rebalancing operations were necessary.
+    * 
+    * @pre: i > 0, i <= tree.size + 1
+    */
+   public int listInsert(int i, int k, String s)
+   {
+	   if (journal != null)
+		   journal.listInsert(i, k, s);
+	   if (!AVLTreeMetrics.ENABLED)
+		   return listInsertNode(i, k, s);
+	   long start = metrics.begin();
+	   int cnt = listInsertNode(i, k, s);
+	   metrics.end(AVLTreeMetrics.Operation.LIST_INSERT, start, heightOf(root));
+	   return cnt;
+   }
+   /**
+    * private int listInsertNode(int i, int k, String s)
+    *
+    * The body of listInsert, without the metrics bracket.
+    */
+   private int listInsertNode(int i, int k, String s) {   
+	   keyOrdered = false;
+	   IAVLNode z = newNode(k, s, arena, monoid);
+	   if (this.empty()) //Tree is empty
+	   {
+		   root = z;
+		   minimum = z;
+		   maximum = z;
+	   }
+	   else if (i == this.size + 1) //Insert-Last
+	   {
+		   maximum.setRight(z);
+		   z.setParent(maximum);
+		   link(maximum, z);
+		   maximum = z;
+	   }
+	   else if (i == 1) //Insert-First
+	   {
+		   minimum.setLeft(z);
+		   z.setParent(minimum);
+		   link(z, minimum);
+		   minimum = z;
+	   }
+	   else
+	   {
+		   IAVLNode successor = selectNode(i);
+		   if (successor.getLeft() == null)
+		   {
+			   successor.setLeft(z);
+			   z.setParent(successor);
+			   link(((AVLNode) successor).prev, z);
+		   }
+		   else
+		   {
+			   IAVLNode predecessor = findPredecessor(successor);
+			   predecessor.setRight(z);
+			   z.setParent(predecessor);
+			   link(predecessor, z);
+		   }
+		   link(z, successor);
+	   }
+	   this.size++;
+	   IAVLNode y = z;
+	   // update loop.
+	   int cnt = 0;
+	   while (y != null)
+	   {
+		   if (AVLTreeMetrics.ENABLED)
+			   metrics.updateStep();
+		   ((AVLNode) y).setSize(updateSize(y));
+		   ((AVLNode) y).updateMeasure();
+		   int oldHeight = y.getHeight();
+		   y.setHeight(updateHeight(y));
+		   int BF = getBalance(y);
+		   if ((Math.abs(BF) < 2) && (oldHeight == y.getHeight())) // No more changes needed. Still runs for updating heights.
+		   {
+			   y = y.getParent();
+			   continue;
+		   }
+		   else if (Math.abs(BF) < 2) // continue checking this node's ancestor.
+		   {
+			   y = y.getParent();
+			   continue;
+		   }
+		   else // Houston we have a problem. Rotation is needed.
+		   {
+			   cnt += rotationsManager(y, BF);
+			   y = y.getParent();
+		   }
+	   }
+	   finger = z; // rotations keep ranks, so z is still the i-th node.
+	   fingerRank = i;
+	   return cnt;
+   }
+	/**
+	 * public IAVLNode treeSelect(int k)
+	 * 
+	 * Given a tree and a number k, the function returns the node with the k-th key in the tree
+	 * returns null if k is not a rank the exists in the tree
+	 * The search starts from the closest finger (minimum, maximum or the last selected node),
+	 * so it costs O(log d) where d is the rank distance from that finger.
+	 * 
+	 */
+	public IAVLNode treeSelect(int k)
+	{
+		if (!AVLTreeMetrics.ENABLED)
+			return selectNode(k);
+		long start = metrics.begin();
+		IAVLNode node = selectNode(k);
+		metrics.end(AVLTreeMetrics.Operation.SELECT, start, heightOf(root));
+		return node;
+	}
+	/**
+	 * private IAVLNode selectNode(int k)
+	 *
+	 * The body of treeSelect, without the metrics bracket.
+	 */
+	private IAVLNode selectNode(int k)
+	{
+		if(this.empty() || k < 1 || k > this.size)
+			return null;
+		if (k==1)
+			return this.minimum;
+		if (k== this.size)
+			return this.maximum;
+		IAVLNode node = fingerSelect(k);
+		finger = node;
+		fingerRank = k;
+		return node;
+	}
+	/**
+	 * private IAVLNode fingerSelect(int k)
+	 *
+	 * Finger search: starts at the finger closest to rank k, climbs until the
+	 * current sub-tree covers rank k, then descends with select.
+	 *
+	 * @pre: k > 0, k <= tree.size
+	 */
+	private IAVLNode fingerSelect(int k)
+	{
+		IAVLNode x = this.minimum;
+		int r = 1;
+		if (this.size - k < k - 1)
+		{
+			x = this.maximum;
+			r = this.size;
+		}
+		if (finger != null && Math.abs(fingerRank - k) < Math.abs(r - k))
+		{
+			x = finger;
+			r = fingerRank;
+		}
+		int lo = r - sizeOf(x.getLeft()); // x's sub-tree covers the ranks [lo, hi].
+		int hi = r + sizeOf(x.getRight());
+		while (k < lo || k > hi)
+		{
+			IAVLNode p = x.getParent();
+			if (x == p.getLeft())
+				hi += sizeOf(p.getRight()) + 1;
+			else
+				lo -= sizeOf(p.getLeft()) + 1;
+			x = p;
+		}
+		k -= lo - 1;
+		int depth = 1;
+		while (true) // select, iteratively, so the metrics can count the descent.
+		{
+			int rank = sizeOf(x.getLeft()) + 1;
+			if (rank == k)
+				break;
+			if (k < rank)
+				x = x.getLeft();
+			else
+			{
+				k -= rank;
+				x = x.getRight();
+			}
+			if (AVLTreeMetrics.ENABLED)
+				depth++;
+		}
+		if (AVLTreeMetrics.ENABLED)
+			metrics.descent(depth);
+		return x;
+	}
+	/**
+	 * private static AVLNode newNode(int k, String s, InfoArena arena, Monoid monoid)
+	 *
+	 * Creates a detached node, measured by monoid if it is not null,
+	 * or else keeping s in arena if that is not null.
+	 */
+	private static AVLNode newNode(int k, String s, InfoArena arena, Monoid monoid)
+	{
+		if (monoid != null)
+			return new MeasuredNode(k, s, monoid);
+		if (arena == null)
+			return new AVLNode(k, s);
+		return new ArenaNode(k, arena, arena.add(s));
+	}
+	/**
+	 * private static int sizeOf(IAVLNode x)
+	 *
+	 * Returns the size of the sub-tree rooted at x, or 0 if x is null.
+	 */
+	private static int sizeOf(IAVLNode x)
+	{
+		if (x == null)
+			return 0;
+		return ((AVLNode) x).getSize();
+	}
+	/**
+	 * public static IAVLNode select(IAVLNode root, int k)
+	 * 
+	 * recursive function that finds the k-th node in the tree
+	 * 
+	 * @pre: k > 0, k <= tree.size
+	 * @pre: !tree.empty()
+	 */
+	public static IAVLNode select(IAVLNode root, int k)
+	{
+		int rank;
+		if (root.getLeft() != null)
+			rank = ((AVLNode) root.getLeft()).getSize() + 1;
+		else
+			rank = 1;
+		if (rank == k)
+			return root;
+		else if (k < rank)
+			return select(root.getLeft(),k);
+		else
+			return select(root.getRight(),k-rank);
+	}
+	/**
+	    * public static int getRank(IAVLNode x)
+	    *
+	    * Returns the Rank of a node x.
+	    */
+	public static int getRank(IAVLNode x)
+	   {
+		   if (x == null)
+			   return 0;
+		   int r = 1;
+		   if (x.getLeft() != null)
+			   r += ((AVLNode) x.getLeft()).getSize();
+		   IAVLNode y = x;
+		   while (y != null)
+		   {
+			   IAVLNode p = y.getParent();
+			   if ((p != null) && (y == p.getRight())) // y is a right child.
+			   {
+				   if (p.getLeft() == null)
+					   r += 1;
+				   else
+					   r += ((AVLNode) p.getLeft()).getSize() + 1;
+			   }
+			   y = y.getParent();
+		   }
+		   return r;
+	   }
+   /**
+    * private int rotationsManager(IAVLNode x, int BF)
+    *
+    * Chooses the right rotation to perform 
+    * and returns the number of rotations (1 or 2) that had been done.
+    */
+   private int rotationsManager(IAVLNode x, int BF)
+   {
+	   // x's BF is one of {-2, 2}.
+	   // x's sons BF is one of {-1, 0 , 1}.
+	   // There are 4 general cases.
+	   int BFLeft = getBalance(x.getLeft());
+	   int BFRight = getBalance(x.getRight());
+	   // Right Case 
+       if ((BF == 2) && (BFLeft > -1))
+       {
+    	   rightRotate(x);
+    	   if (AVLTreeMetrics.ENABLED)
+    		   metrics.rotation(1);
+    	   return 1;
+       }
+       // Left Case 
+       if ((BF == -2) && (BFRight < 1))
+       {
+    	   leftRotate(x);
+    	   if (AVLTreeMetrics.ENABLED)
+    		   metrics.rotation(1);
+    	   return 1;
+       }
+       // Left then Right Case 
+       if ((BF == 2) && (BFLeft == -1))
+       { 
+           leftRotate(x.getLeft());
+           rightRotate(x);
+           if (AVLTreeMetrics.ENABLED)
+        	   metrics.rotation(2);
+           return 2;
+       } 
+       // Right then Left Case 
+       if ((BF == -2) && (BFRight == 1))
+       { 
+           rightRotate(x.getRight()); 
+           leftRotate(x);
+           if (AVLTreeMetrics.ENABLED)
+        	   metrics.rotation(2);
+           return 2;
+       } 
+	   return -1000;
+   }
+
+  /**
+   * public int delete(int k)
+   *
+   * deletes an item with key k from the binary tree, if it is there;
+   * the tree must remain valid (keep its invariants).
+   * returns the number of rebalancing operations, or 0 if no rebalancing operations were needed.
+   * returns -1 if an item with key k was not found in the tree.
+   */
+   public int delete(int k)
+   {
+	   if (journal != null)
+		   journal.delete(k);
+	   if (cache != null)
+		   cache.remove(k);
+	   if (!AVLTreeMetrics.ENABLED)
+		   return deleteNode(k);
+	   long start = metrics.begin();
+	   int cnt = deleteNode(k);
+	   metrics.end(AVLTreeMetrics.Operation.DELETE, start, heightOf(root));
+	   return cnt;
+   }
+   /**
+    * private int deleteNode(int k)
+    *
+    * The body of delete, without the metrics bracket.
+    */
+   private int deleteNode(int k)
+   {
+	   IAVLNode node = searchNode(k); //Retrieve the node we want to delete
+	   IAVLNode updateFrom = null; //Where to begin updating information after deletion
+	   int cnt = 0; //Counter for rotations
+	   if (node == null)
+		   return -1;
+	   this.size = size() - 1;
+	   if (node == finger)
+		   finger = null;
+	   else if (finger != null && k < finger.getKey()) // finger moved one rank left.
+		   fingerRank--;
+	   if (node == minimum)
+	   {
+		   minimum = findSuccessor(node);
+	   }
+	   if (node == maximum)
+	   {
+		   maximum = findPredecessor(node);
+	   }
+	   if (node.getLeft() == null && node.getRight() == null) //Case 1: The node is a leaf
+	   {
+		   if (node == root) //Delete the root
+		   {
+			   root = null;
+		   }
+		   else
+		   {
+			   bypass(node,null); //Set parent's right/left child to null.  
+			   updateFrom = node.getParent();
+		   }
+	   }
+	   else if (node.getLeft() != null && node.getRight() == null) //Case 2: The node has only a left child
+	   {
+		   if (node == root) //Delete the root
+		   {
+			   root = node.getLeft();
+			   root.setParent(null);
+			   updateFrom = root;
+		   }
+		   else
+		   {
+			   bypass(node,node.getLeft()); //Bypass to the left child of the parent
+			   node.getLeft().setParent(node.getParent());
+			   updateFrom = node.getLeft();
+		   }
+	   }
+	   else if (node.getRight() != null && node.getLeft() == null) //Case 2: The node has only a right child
+	   {
+		   if (node == root) //Delete the root
+		   {
+			   root = node.getRight();
+			   root.setParent(null);
+			   updateFrom = root;
+		   }
+		   else
+		   {
+			   bypass(node,node.getRight()); //Bypass to the right child of the parent
+			   node.getRight().setParent(node.getParent());
+			   updateFrom = node.getParent();
+		   }
+	   }
+	   else //Case 3: The node has 2 children
+	   {
+		   IAVLNode successor = minInSubTree(node.getRight()); //The successor is certainly in the right sub-tree
+		   if (node.getRight() != successor) //Successor is not the right child of the node
+		   {
+			   updateFrom = successor.getParent();
+			   if (successor.getRight() != null) //Successor has a right child
+			   {
+				   bypass(successor,successor.getRight()); //remove successor from its place
+				   successor.getRight().setParent(successor.getParent());
+			   }
+			   else //Successsor is a leaf
+			   {
+				   bypass(successor,null);
+			   }
+			   successor.setRight(node.getRight());
+			   successor.getRight().setParent(successor);
+		   }
+		   else
+		   {
+			   updateFrom = successor;
+		   }
+		   successor.setLeft(node.getLeft());
+		   successor.getLeft().setParent(successor);
+		   if (node == root) //Deleted node is the root
+		   {
+			   root = successor;
+			   successor.setParent(null);
+		   }
+		   else //Deleted node is not the root
+		   {
+			   bypass(node,successor);
+			   successor.setParent(node.getParent());
+		   }
+	   }
+	   node.setLeft(null); //Delete the node
+	   node.setRight(null);
+	   node.setParent(null);
+	   unthread(node);
+	   
+	   // update loop.
+	   IAVLNode y = updateFrom;
+	   while (y != null)
+	   {
+		   if (AVLTreeMetrics.ENABLED)
+			   metrics.updateStep();
+		   ((AVLNode) y).setSize(updateSize(y));
+		   ((AVLNode) y).updateMeasure();
+		   int oldHeight = y.getHeight();
+		   y.setHeight(updateHeight(y));
+		   int BF = getBalance(y);
+		   if ((Math.abs(BF) < 2) && (oldHeight == y.getHeight())) // No more changes needed. Still runs for updating heights.
+		   {
+			   y = y.getParent();
+			   continue;
+		   }
+		   else if (Math.abs(BF) < 2) // continue checking this node's ancestor.
+		   {
+			   y = y.getParent();
+			   continue;
+		   }
+		   else // Houston we have a problem. Rotation is needed.
+		   {
+			   cnt += rotationsManager(y, BF);
+			   y = y.getParent();
+		   }
+	   }
+	   return cnt;
+   }
+   
+   /**
+    * private static void bypass(IAVLNode deletedNode, IAVLNode child)
+    * 
+    * Checks if a deleted node is the left of right child of its parent
+    * Sets the left/right child of the parent to a new child, or to be a null pointer.
+    */
+   private static void bypass(IAVLNode deletedNode, IAVLNode child) 
+   {
+	   if (deletedNode.getParent().getRight() == deletedNode)  //The deleted node is the right child of its parent
+		   		deletedNode.getParent().setRight(child);
+	   else if (deletedNode.getParent().getLeft() == deletedNode) //The deleted node is the left child of its paret
+		   		deletedNode.getParent().setLeft(child);
+   }
+   /**
+    *    public int listDelete(int k)
+    * 
+    * Used for a deleting and item from a list implemented by an AVLTree.
+    * Deletes the item in the k-th position
+    * returns the number of rebalancing operations, or 0 if no rebalancing operations were needed.
+    * @pre: k > 0, k <= tree.size
+    */
+   public int listDelete(int k)
+   {
+	   if (journal != null)
+		   journal.listDelete(k);
+	   if (!AVLTreeMetrics.ENABLED)
+		   return listDeleteNode(k);
+	   long start = metrics.begin();
+	   int cnt = listDeleteNode(k);
+	   metrics.end(AVLTreeMetrics.Operation.LIST_DELETE, start, heightOf(root));
+	   return cnt;
+   }
+   /**
+    * private int listDeleteNode(int k)
+    *
+    * The body of listDelete, without the metrics bracket.
+    */
+   private int listDeleteNode(int k)
+   {
+	   IAVLNode node = selectNode(k); //Retrieve the node with rank k
+	   if (cache != null)
+		   cache.remove(node.getKey());
+	   IAVLNode updateFrom = null; //Where to begin updating information after deletion
+	   int cnt = 0; //Counter for rotations
+	   // the node that will hold rank k (or k-1 when deleting the last) becomes the finger.
+	   IAVLNode neighbour = (k < size()) ? findSuccessor(node) : findPredecessor(node);
+	   int neighbourRank = (k < size()) ? k : k - 1;
+	   this.size = size() - 1;
+	   if (node.getLeft() == null && node.getRight() == null) //Case 1: The node is a leaf
+	   {
+		   if (node == root) //Delete the root
+		   {
+			   root = null;
+		   }
+		   else
+		   {
+			   bypass(node,null); //Set parent's right/left child to null.  
+			   updateFrom = node.getParent();
+		   }
+	   }
+	   else if (node.getLeft() != null && node.getRight() == null) //Case 2: The node has only a left child
+	   {
+		   if (node == root) //Delete the root
+		   {
+			   root = node.getLeft();
+			   root.setParent(null);
+			   updateFrom = root;
+		   }
+		   else
+		   {
+			   bypass(node,node.getLeft()); //Bypass to the left child of the parent
+			   node.getLeft().setParent(node.getParent());
+			   updateFrom = node.getLeft();
+		   }
+	   }
+	   else if (node.getRight() != null && node.getLeft() == null) //Case 2: The node has only a right child
+	   {
+		   if (node == root) //Delete the root
+		   {
+			   root = node.getRight();
+			   root.setParent(null);
+			   updateFrom = root;
+		   }
+		   else
+		   {
+			   bypass(node,node.getRight()); //Bypass to the right child of the parent
+			   node.getRight().setParent(node.getParent());
+			   updateFrom = node.getParent();
+		   }
+	   }
+	   else //Case 3: The node has 2 children
+	   {
+		   IAVLNode successor = minInSubTree(node.getRight()); //The successor is certainly in the right sub-tree
+		   if (node.getRight() != successor) //Successor is not the right child of the node
+		   {
+			   updateFrom = successor.getParent();
+			   if (successor.getRight() != null) //Successor has a right child
+			   {
+				   bypass(successor,successor.getRight()); //remove successor from its place
+				   successor.getRight().setParent(successor.getParent());
+			   }
+			   else //Successsor is a leaf
+			   {
+				   bypass(successor,null);
+			   }
+			   successor.setRight(node.getRight());
+			   successor.getRight().setParent(successor);
+		   }
+		   else
+		   {
+			   updateFrom = successor;
+		   }
+		   successor.setLeft(node.getLeft());
+		   successor.getLeft().setParent(successor);
+		   if (node == root) //Deleted node is the root
+		   {
+			   root = successor;
+			   successor.setParent(null);
+		   }
+		   else //Deleted node is not the root
+		   {
+			   bypass(node,successor);
+			   successor.setParent(node.getParent());
+		   }
+	   }
+	   
+	   
+	   // update loop.
+	   IAVLNode y = updateFrom;
+	   while (y != null)
+	   {
+		   if (AVLTreeMetrics.ENABLED)
+			   metrics.updateStep();
+		   ((AVLNode) y).setSize(updateSize(y));
+		   ((AVLNode) y).updateMeasure();
+		   int oldHeight = y.getHeight();
+		   y.setHeight(updateHeight(y));
+		   int BF = getBalance(y);
+		   if ((Math.abs(BF) < 2) && (oldHeight == y.getHeight())) // No more changes needed. Still runs for updating heights.
+		   {
+			   y = y.getParent();
+			   continue;
+		   }
+		   else if (Math.abs(BF) < 2) // continue checking this node's ancestor.
+		   {
+			   y = y.getParent();
+			   continue;
+		   }
+		   else // Houston we have a problem. Rotation is needed.
+		   {
+			   cnt += rotationsManager(y, BF);
+			   y = y.getParent();
+		   }
+	   }
+	   if (node == minimum)
+	   {
+		   minimum = findSuccessor(node);
+	   }
+	   if (node == maximum)
+	   {
+		   maximum = findPredecessor(node);
+	   }
+	   node.setLeft(null); //Delete the node
+	   node.setRight(null);
+	   node.setParent(null);
+	   unthread(node);
+	   finger = neighbour;
+	   fingerRank = neighbourRank;
+	   return cnt;
+   }
+   /**
+    * public static IAVLNode findSuccessor(IAVLNode x)
+    * 
+    * Finds the successor of a node x, in O(1) by its thread if THREADED.
+    */
+   public static IAVLNode findSuccessor(IAVLNode x)
+   {
+	   if (THREADED)
+		   return ((AVLNode) x).next;
+	   return climbSuccessor(x);
+   }
+   /**
+    * public static IAVLNode findPredecessor(IAVLNode x)
+    * 
+    * Finds the Predecessor of a node x, in O(1) by its thread if THREADED.
+    */
+   public static IAVLNode findPredecessor(IAVLNode x)
+   {
+	   if (THREADED)
+		   return ((AVLNode) x).prev;
+	   return climbPredecessor(x);
+   }
+   /**
+    * private static IAVLNode climbSuccessor(IAVLNode x)
+    * 
+    * Finds the successor of a node x from the tree's shape alone, in O(log n).
+    */
+   private static IAVLNode climbSuccessor(IAVLNode x)
+   {
+	   if (x.getRight() != null)
+		   return minInSubTree(x.getRight());
+	   IAVLNode y = x.getParent();
+	   while (y != null && x == y.getRight())
+	   {
+		   x = y;
+		   y = x.getParent();
+	   }
+	   return y;
+   }
+   /**
+    * private static IAVLNode climbPredecessor(IAVLNode x)
+    * 
+    * Finds the Predecessor of a node x from the tree's shape alone, in O(log n).
+    */
+   private static IAVLNode climbPredecessor(IAVLNode x)
+   {
+	   if (x.getLeft() != null)
+		   return maxInSubTree(x.getLeft());
+	   IAVLNode y = x.getParent();
+	   while (y != null && x == y.getLeft())
+	   {
+		   x = y;
+		   y = x.getParent();
+	   }
+	   return y;
+   }
+   /**
+    * private static void link(IAVLNode a, IAVLNode b)
+    * 
+    * Threads b right after a. A null a makes b the first node,
+    * a null b makes a the last. Does nothing unless THREADED.
+    */
+   private static void link(IAVLNode a, IAVLNode b)
+   {
+	   if (!THREADED)
+		   return;
+	   if (a != null)
+		   ((AVLNode) a).next = (AVLNode) b;
+	   if (b != null)
+		   ((AVLNode) b).prev = (AVLNode) a;
+   }
+   /**
+    * private static void unthread(IAVLNode x)
+    * 
+    * Links x's neighbours to each other and clears x's own threads.
+    * Does nothing unless THREADED.
+    */
+   private static void unthread(IAVLNode x)
+   {
+	   if (!THREADED)
+		   return;
+	   AVLNode node = (AVLNode) x;
+	   if (node.prev != null)
+		   node.prev.next = node.next;
+	   if (node.next != null)
+		   node.next.prev = node.prev;
+	   node.prev = null;
+	   node.next = null;
+   }
+   /**
+    * private int getBalance(IAVLNode x)
+    * 
+    * Returns the Balance Factor of node x. 
+    */
+   private static int getBalance(IAVLNode x) { 
+       if (x == null) // x is null.
+           return 0;
+       IAVLNode l = x.getLeft();
+	   IAVLNode r = x.getRight();
+	   if ((l == null) && (r == null)) // no children.
+		   return 0;
+	   else if (l == null) // no left children.
+		   return -1 - r.getHeight();
+	   else if (r == null) // no right children.
+		   return l.getHeight() + 1;
+       return l.getHeight() - r.getHeight(); 
+   }
+   
+   
+   /**
+    * private void leftRotate(IAVLNode x)
+    * 
+    * A utility function to left rotate subtree rooted with x.
+    */
+   private void leftRotate(IAVLNode x)
+   {
+	   IAVLNode y = rotateLeft(x);
+	   if (y.getParent() == null) // root case.
+		   this.root = y;
+   }
+
+   /**
+    * private static IAVLNode rotateLeft(IAVLNode x)
+    * 
+    * Left rotates the subtree rooted with x and returns its new root.
+    * Does not touch the tree's root field, so it also works on detached sub-trees.
+    */
+   private static IAVLNode rotateLeft(IAVLNode x)
+   {
+	   IAVLNode y = x.getRight(); // set y.
+	   x.setRight(y.getLeft()); // turn y's left subtree into x's right subtree.
+	   if (y.getLeft() != null) //update parent for y's new subtree.
+		   y.getLeft().setParent(x);
+	   y.setParent(x.getParent()); // link x's parent to y.
+	   IAVLNode p = x.getParent(); // root case needs no relinking here.
+	   if (p != null && x == p.getLeft()) // x-is-a-left-child case.
+		   p.setLeft(y); //y should be a left child, as x was before.
+	   else if (p != null) // x-is-a-right-son case.
+		   p.setRight(y); //y should be a right child, as x was before.
+	   y.setLeft(x); // put x as y's left child.
+	   x.setParent(y); // set y as x's new parent.
+	   
+	   // updates heights of nodes.
+	   x.setHeight(updateHeight(x));
+	   y.setHeight(updateHeight(y));
+	   
+	   // updates size of nodes.
+	   ((AVLNode) x).setSize(updateSize(x));
+	   ((AVLNode) y).setSize(updateSize(y));
+	   ((AVLNode) x).updateMeasure();
+	   ((AVLNode) y).updateMeasure();
+	   return y;
+   }
+   
+   /**
+    * private void rightRotate(IAVLNode x)
+    * 
+    * A utility function to right rotate subtree rooted with x.
+    */
+   private void rightRotate(IAVLNode x)
+   {
+	   IAVLNode y = rotateRight(x);
+	   if (y.getParent() == null) // root case.
+		   this.root = y;
+   }
+
+   /**
+    * private static IAVLNode rotateRight(IAVLNode x)
+    * 
+    * Right rotates the subtree rooted with x and returns its new root.
+    * Does not touch the tree's root field, so it also works on detached sub-trees.
+    */
+   private static IAVLNode rotateRight(IAVLNode x)
+   {
+	   IAVLNode y = x.getLeft(); // set y.
+	   x.setLeft(y.getRight());; // turn y's right subtree into x's left subtree.
+	   if (y.getRight() != null) //update parent for y's new subtree.
+		   y.getRight().setParent(x);
+	   y.setParent(x.getParent()); // link x's parent to y.
+	   IAVLNode p = x.getParent(); // root case needs no relinking here.
+	   if (p != null && x == p.getLeft()) // x-is-a-left-child case.
+		   p.setLeft(y); //y should be a left child, as x was before.
+	   else if (p != null) // x-is-a-right-son case.
+		   p.setRight(y); //y should be a right child, as x was before.
+	   y.setRight(x); // put x as y's right child.
+	   x.setParent(y); // set y as x's new parent.
+	   
+	   // updates heights of nodes.
+	   x.setHeight(updateHeight(x));
+	   y.setHeight(updateHeight(y));
+	   
+	   // updates size of nodes.
+	   ((AVLNode) x).setSize(updateSize(x));
+	   ((AVLNode) y).setSize(updateSize(y));
+	   ((AVLNode) x).updateMeasure();
+	   ((AVLNode) y).updateMeasure();
+	   return y;
+   }
+   
+   /**
+    * private static int updateHeight(IAVLNode x)
+    *
+    * Utility function.
+    * Returns the current height of node x.
+    */
+   private static int updateHeight(IAVLNode x)
+   {
+	   IAVLNode l = x.getLeft();
+	   IAVLNode r = x.getRight();
+	   if ((l == null) && (r == null)) // no children.
+		   return 0;
+	   else if (l == null) // no left children.
+		   return r.getHeight() + 1;
+	   else if (r == null) // no right children.
+		   return l.getHeight() + 1;
+	   return Math.max(l.getHeight(), r.getHeight()) + 1;
+   }
+   
+   /**
+    * private static int updateSize(IAVLNode x)
+    *
+    * Utility function.
+    * Returns the current size of node x.
+    */
+   private static int updateSize(IAVLNode x)
+   {
+	   IAVLNode l = x.getLeft();
+	   IAVLNode r = x.getRight();
+	   if ((l == null) && (r == null)) // no children.
+		   return 1;
+	   else if (l == null) // no left child.
+		   return ((AVLNode) r).getSize() + 1;
+	   else if (r == null) // no right child.
+		   return ((AVLNode) l).getSize() + 1;
+	   return ((AVLNode) r).getSize() + ((AVLNode) l).getSize() + 1;
+   }
+   
+   /**
+    * public String min()
+    *
+    * Returns the info of the item with the smallest key in the tree,
+    * or null if the tree is empty
+    */
+   public String min()
+   {
+	   if (minimum == null)
+		   return null;
+	   return minimum.getValue();
+   }
+
+   /**
+    * public String max()
+    *
+    * Returns the info of the item with the largest key in the tree,
+    * or null if the tree is empty
+    */
+   public String max()
+   {
+	   if (maximum == null)
+		   return null;
+	   return maximum.getValue();
+   }
+   
+   /**
+    * public static IAVLNode minInSubTree(IAVLNode root)
+    *
+    * Returns the node with the smallest key in the sub-tree of a given root
+    * or null if the sub-tree is empty
+    */
+   public static IAVLNode minInSubTree(IAVLNode root)
+   {
+	   IAVLNode node = root;
+	   while (node.getLeft() != null)
+	   {
+		   node = node.getLeft();
+	   }
+	   return node;
+   }
+   /**
+    * public static IAVLNode maxInSubTree(IAVLNode root)
+    *
+    * Returns the node with the biggest key in the sub-tree of a given root
+    * or null if the sub-tree is empty
+    */
+   public static IAVLNode maxInSubTree(IAVLNode root)
+   {
+	   IAVLNode node = root;
+	   while (node.getRight() != null)
+	   {
+		   node = node.getRight();
+	   }
+	   return node;
+   }
+  /**
+   * public int[] keysToArray()
+   *
+   * Returns a sorted array which contains all keys in the tree,
+   * or an empty array if the tree is empty.
+   * Walks the tree iteratively with a local index, so concurrent readers do not interfere.
+   */
+  public int[] keysToArray()
+  {
+	  int[] arr = new int[size];
+	  int j = 0;
+	  for (IAVLNode x = minimum; j < arr.length; x = findSuccessor(x))
+		  arr[j++] = x.getKey();
+      return arr;
+  }
+
+  /**
+   * public String[] infoToArray()
+   *
+   * Returns an array which contains all info in the tree,
+   * sorted by their respective keys,
+   * or an empty array if the tree is empty.
+   * Walks the tree iteratively with a local index, so concurrent readers do not interfere.
+   */
+  public String[] infoToArray()
+  {
+	  String[] arr = new String[size];
+	  int j = 0;
+	  for (IAVLNode x = minimum; j < arr.length; x = findSuccessor(x))
+		  arr[j++] = x.getValue();
+      return arr;
+  }
+
+  /**
+   * public int[] parallelKeysToArray()
+   *
+   * As keysToArray, on the common ForkJoinPool. Each task exports one sub-tree into the
+   * ranks it covers, found from the sub-tree sizes, so the tasks share no index.
+   * The tree must not be modified while it runs.
+   */
+  public int[] parallelKeysToArray()
+  {
+	  int[] arr = new int[size];
+	  ForkJoinPool.commonPool().invoke(new ExportTask(root, 0, arr, null));
+	  return arr;
+  }
+
+  /**
+   * public String[] parallelInfoToArray()
+   *
+   * As infoToArray, on the common ForkJoinPool (see parallelKeysToArray).
+   */
+  public String[] parallelInfoToArray()
+  {
+	  String[] arr = new String[size];
+	  ForkJoinPool.commonPool().invoke(new ExportTask(root, 0, null, arr));
+	  return arr;
+  }
+
+  /**
+   * public long parallelReduce(Monoid m)
+   *
+   * Returns m's combined measure of all the items, in order, or its identity if the tree is empty,
+   * computed on the common ForkJoinPool, one task per sub-tree.
+   * The tree need not be measured; m is applied to every item.
+   */
+  public long parallelReduce(Monoid m)
+  {
+	  return ForkJoinPool.commonPool().invoke(new ReduceTask(root, m));
+  }
+
+  /**
+   * public void parallelForEach(ItemVisitor v)
+   *
+   * Passes every item to v on the common ForkJoinPool, one task per sub-tree.
+   * v is called from several threads at once and in no particular order.
+   * The tree must not be modified while it runs.
+   */
+  public void parallelForEach(ItemVisitor v)
+  {
+	  ForkJoinPool.commonPool().invoke(new VisitTask(root, v));
+  }
+
+  /**
+   * private static class ExportTask
+   *
+   * Writes the keys and/or infos of sub-tree x to ranks offset.. of the output arrays:
+   * the root goes to offset + size(left), and the two sub-trees are forked.
+   */
+  private static class ExportTask extends RecursiveAction
+  {
+	  private static final long serialVersionUID = 1L;
+
+	  private final IAVLNode x;
+	  private final int offset;
+	  private final int[] keys; // null if not exported.
+	  private final String[] infos; // null if not exported.
+
+	  ExportTask(IAVLNode x, int offset, int[] keys, String[] infos)
+	  {
+		  this.x = x;
+		  this.offset = offset;
+		  this.keys = keys;
+		  this.infos = infos;
+	  }
+
+	  protected void compute()
+	  {
+		  int n = sizeOf(x);
+		  if (n <= PARALLEL_GRAIN)
+		  {
+			  if (n == 0)
+				  return;
+			  IAVLNode y = minInSubTree(x);
+			  for (int j = offset; j < offset + n; j++, y = findSuccessor(y))
+			  {
+				  if (keys != null)
+					  keys[j] = y.getKey();
+				  if (infos != null)
+					  infos[j] = y.getValue();
+			  }
+			  return;
+		  }
+		  int mid = offset + sizeOf(x.getLeft());
+		  if (keys != null)
+			  keys[mid] = x.getKey();
+		  if (infos != null)
+			  infos[mid] = x.getValue();
+		  invokeAll(new ExportTask(x.getLeft(), offset, keys, infos), new ExportTask(x.getRight(), mid + 1, keys, infos));
+	  }
+  }
+
+  /**
+   * private static class ReduceTask
+   *
+   * Combines the measures of sub-tree x in order: left, then the root, then right.
+   */
+  private static class ReduceTask extends RecursiveTask<Long>
+  {
+	  private static final long serialVersionUID = 1L;
+
+	  private final IAVLNode x;
+	  private final Monoid m;
+
+	  ReduceTask(IAVLNode x, Monoid m)
+	  {
+		  this.x = x;
+		  this.m = m;
+	  }
+
+	  protected Long compute()
+	  {
+		  int n = sizeOf(x);
+		  long acc = m.identity();
+		  if (n <= PARALLEL_GRAIN)
+		  {
+			  IAVLNode y = (n == 0) ? null : minInSubTree(x);
+			  for (int j = 0; j < n; j++, y = findSuccessor(y))
+				  acc = m.combine(acc, m.measure(y.getKey(), y.getValue()));
+			  return acc;
+		  }
+		  ReduceTask left = new ReduceTask(x.getLeft(), m);
+		  left.fork();
+		  long right = new ReduceTask(x.getRight(), m).compute();
+		  long own = m.measure(x.getKey(), x.getValue());
+		  return m.combine(m.combine(left.join(), own), right);
+	  }
+  }
+
+  /**
+   * private static class VisitTask
+   *
+   * Passes the items of sub-tree x to v, forking its two sub-trees.
+   */
+  private static class VisitTask extends RecursiveAction
+  {
+	  private static final long serialVersionUID = 1L;
+
+	  private final IAVLNode x;
+	  private final ItemVisitor v;
+
+	  VisitTask(IAVLNode x, ItemVisitor v)
+	  {
+		  this.x = x;
+		  this.v = v;
+	  }
+
+	  protected void compute()
+	  {
+		  int n = sizeOf(x);
+		  if (n <= PARALLEL_GRAIN)
+		  {
+			  IAVLNode y = (n == 0) ? null : minInSubTree(x);
+			  for (int j = 0; j < n; j++, y = findSuccessor(y))
+				  v.visit(y.getKey(), y.getValue());
+			  return;
+		  }
+		  v.visit(x.getKey(), x.getValue());
+		  invokeAll(new VisitTask(x.getLeft(), v), new VisitTask(x.getRight(), v));
+	  }
+  }
+
+  /**
+   * public Iterator<IAVLNode> iterator()
+   *
+   * Returns an in-order iterator over the nodes of the tree.
+   * Iterators step with findSuccessor: no allocation per step and no shared tree state,
+   * but the tree must not be modified while they are in use.
+   */
+  public Iterator<IAVLNode> iterator()
+  {
+	  return new NodeIterator(minimum);
+  }
+
+  /**
+   * public Iterator<IAVLNode> iteratorAtRank(int i)
+   *
+   * Returns an in-order iterator over the nodes ranked i and up.
+   * The iterator is empty if i > size.
+   */
+  public Iterator<IAVLNode> iteratorAtRank(int i)
+  {
+	  return new NodeIterator(nodeAtRank(i));
+  }
+
+  /**
+   * public Iterator<IAVLNode> iteratorFrom(int k)
+   *
+   * Returns an in-order iterator over the nodes with keys bigger than or equal to k.
+   */
+  public Iterator<IAVLNode> iteratorFrom(int k)
+  {
+	  return new NodeIterator(ceiling(k));
+  }
+
+  /**
+   * public PrimitiveIterator.OfInt keyIterator()
+   *
+   * Returns an in-order iterator over the keys of the tree, without boxing.
+   */
+  public PrimitiveIterator.OfInt keyIterator()
+  {
+	  return new KeyIterator(minimum);
+  }
+
+  /**
+   * public PrimitiveIterator.OfInt keyIteratorAtRank(int i)
+   *
+   * Returns an in-order iterator over the keys ranked i and up.
+   */
+  public PrimitiveIterator.OfInt keyIteratorAtRank(int i)
+  {
+	  return new KeyIterator(nodeAtRank(i));
+  }
+
+  /**
+   * public PrimitiveIterator.OfInt keyIteratorFrom(int k)
+   *
+   * Returns an in-order iterator over the keys bigger than or equal to k.
+   */
+  public PrimitiveIterator.OfInt keyIteratorFrom(int k)
+  {
+	  return new KeyIterator(ceiling(k));
+  }
+
+  /**
+   * public Spliterator<IAVLNode> spliterator()
+   *
+   * Returns a spliterator over the nodes in order, for stream().parallel().
+   * It is SIZED and SUBSIZED: trySplit halves its range of ranks with one O(log n) select,
+   * so every share is known exactly. On a key-ordered tree it also reports SORTED by key and DISTINCT;
+   * once a list operation (listInsert, listInsertAll, listConcat, listFromArray over unsorted keys)
+   * may have put the keys out of order, it does not. The tree must not be modified while it is in use.
+   */
+  public Spliterator<IAVLNode> spliterator()
+  {
+	  return new NodeSpliterator(root, 1, size + 1, characteristics());
+  }
+
+  /**
+   * public Stream<IAVLNode> stream()
+   *
+   * Returns a sequential stream over the nodes in order; call parallel() to split it (see spliterator).
+   */
+  public Stream<IAVLNode> stream()
+  {
+	  return StreamSupport.stream(spliterator(), false);
+  }
+
+  /**
+   * public Spliterator.OfInt keySpliterator()
+   *
+   * As spliterator, over the keys.
+   */
+  public Spliterator.OfInt keySpliterator()
+  {
+	  return new KeySpliterator(root, 1, size + 1, characteristics());
+  }
+
+  /**
+   * private int characteristics()
+   *
+   * Returns the characteristics of this tree's spliterators.
+   */
+  private int characteristics()
+  {
+	  int c = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+	  return keyOrdered ? c | Spliterator.SORTED | Spliterator.DISTINCT : c;
+  }
+
+  /**
+   * public IntStream keyStream()
+   *
+   * Returns a sequential stream over the keys in order; call parallel() to split it.
+   */
+  public IntStream keyStream()
+  {
+	  return StreamSupport.intStream(keySpliterator(), false);
+  }
+
+  /**
+   * private IAVLNode nodeAtRank(int i)
+   *
+   * Returns the node ranked i, or null if there is none.
+   * Unlike treeSelect it leaves the finger alone, so it is safe for read-only walks.
+   */
+  private IAVLNode nodeAtRank(int i)
+  {
+	  if (i < 1 || i > size)
+		  return null;
+	  return select(root, i);
+  }
+
+  /**
+   * public IAVLNode ceiling(int k)
+   *
+   * Returns the node with the smallest key bigger than or equal to k, or null if there is none.
+   */
+  public IAVLNode ceiling(int k)
+  {
+	  IAVLNode node = root;
+	  IAVLNode best = null;
+	  while (node != null)
+	  {
+		  if (node.getKey() == k)
+			  return node;
+		  else if (node.getKey() > k)
+		  {
+			  best = node;
+			  node = node.getLeft();
+		  }
+		  else
+			  node = node.getRight();
+	  }
+	  return best;
+  }
+
+  /**
+   * public IAVLNode floor(int k)
+   *
+   * Returns the node with the largest key smaller than or equal to k, or null if there is none.
+   */
+  public IAVLNode floor(int k)
+  {
+	  IAVLNode node = root;
+	  IAVLNode best = null;
+	  while (node != null)
+	  {
+		  if (node.getKey() == k)
+			  return node;
+		  else if (node.getKey() < k)
+		  {
+			  best = node;
+			  node = node.getRight();
+		  }
+		  else
+			  node = node.getLeft();
+	  }
+	  return best;
+  }
+
+  /**
+   * public int rank(int k)
+   *
+   * Returns the number of keys in the tree smaller than or equal to k, in O(log n) time.
+   * If k is in the tree this is its rank, as used by treeSelect.
+   */
+  public int rank(int k)
+  {
+	  int r = 0;
+	  IAVLNode node = root;
+	  while (node != null)
+	  {
+		  if (node.getKey() <= k) // node and its left sub-tree are counted.
+		  {
+			  r += sizeOf(node.getLeft()) + 1;
+			  node = node.getRight();
+		  }
+		  else
+			  node = node.getLeft();
+	  }
+	  return r;
+  }
+
+  /**
+   * private int countLess(int k)
+   *
+   * Returns the number of keys in the tree smaller than k.
+   */
+  private int countLess(int k)
+  {
+	  int r = 0;
+	  IAVLNode node = root;
+	  while (node != null)
+	  {
+		  if (node.getKey() < k) // node and its left sub-tree are counted.
+		  {
+			  r += sizeOf(node.getLeft()) + 1;
+			  node = node.getRight();
+		  }
+		  else
+			  node = node.getLeft();
+	  }
+	  return r;
+  }
+
+  /**
+   * public int countInRange(int lo, int hi)
+   *
+   * Returns the number of keys k in the tree with lo <= k <= hi, in O(log n) time.
+   */
+  public int countInRange(int lo, int hi)
+  {
+	  if (lo > hi)
+		  return 0;
+	  return rank(hi) - countLess(lo);
+  }
+
+  /**
+   * public int rangeKeys(int lo, int hi, int[] buf)
+   *
+   * Writes the keys k in the tree with lo <= k <= hi, in ascending order, to buf
+   * (as many as fit), in O(log n + m) time.
+   * Returns the number of keys written.
+   */
+  public int rangeKeys(int lo, int hi, int[] buf)
+  {
+	  int j = 0;
+	  for (IAVLNode x = ceiling(lo); x != null && x.getKey() <= hi && j < buf.length; x = findSuccessor(x))
+		  buf[j++] = x.getKey();
+	  return j;
+  }
+
+  /**
+   * public int rangeInfos(int lo, int hi, String[] buf)
+   *
+   * Writes the info of the items with lo <= key <= hi, sorted by key, to buf
+   * (as many as fit), in O(log n + m) time.
+   * Returns the number of infos written.
+   */
+  public int rangeInfos(int lo, int hi, String[] buf)
+  {
+	  int j = 0;
+	  for (IAVLNode x = ceiling(lo); x != null && x.getKey() <= hi && j < buf.length; x = findSuccessor(x))
+		  buf[j++] = x.getValue();
+	  return j;
+  }
+
+  /**
+   * public long aggregate(int i, int j)
+   *
+   * Returns the monoid's combined measure of the items ranked i..j, in rank order,
+   * or its identity if i > j. Runs in O(log n) time: below the node where the ranks
+   * i and j part, it combines O(log n) cached sub-tree measures.
+   * Throws IllegalStateException if the tree is not measured.
+   * @pre: i > 0, j <= tree.size
+   */
+  public long aggregate(int i, int j)
+  {
+	  checkMeasured();
+	  if (i > j)
+		  return monoid.identity();
+	  IAVLNode x = root;
+	  while (true)
+	  {
+		  int rank = sizeOf(x.getLeft()) + 1;
+		  if (j < rank)
+			  x = x.getLeft();
+		  else if (i > rank)
+		  {
+			  i -= rank;
+			  j -= rank;
+			  x = x.getRight();
+		  }
+		  else // x holds a rank in i..j; the rest lies on its two sides.
+		  {
+			  long inner = monoid.combine(suffixByRank(x.getLeft(), i), ((MeasuredNode) x).own);
+			  return monoid.combine(inner, prefixByRank(x.getRight(), j - rank));
+		  }
+	  }
+  }
+
+  /**
+   * public long aggregateByKey(int lo, int hi)
+   *
+   * Returns the monoid's combined measure of the items with lo <= key <= hi, in key order,
+   * or its identity if there are none, in O(log n) time.
+   * Throws IllegalStateException if the tree is not measured.
+   */
+  public long aggregateByKey(int lo, int hi)
+  {
+	  checkMeasured();
+	  IAVLNode x = root;
+	  while (x != null)
+	  {
+		  if (hi < x.getKey())
+			  x = x.getLeft();
+		  else if (lo > x.getKey())
+			  x = x.getRight();
+		  else // x's key is in lo..hi; the rest lies on its two sides.
+		  {
+			  long inner = monoid.combine(suffixByKey(x.getLeft(), lo), ((MeasuredNode) x).own);
+			  return monoid.combine(inner, prefixByKey(x.getRight(), hi));
+		  }
+	  }
+	  return monoid.identity();
+  }
+
+  private void checkMeasured()
+  {
+	  if (monoid == null)
+		  throw new IllegalStateException("the tree is not measured");
+  }
+
+  /**
+   * private long measureOf(IAVLNode x)
+   *
+   * Returns the cached measure of the sub-tree rooted at x, or the identity if x is null.
+   */
+  private long measureOf(IAVLNode x)
+  {
+	  if (x == null)
+		  return monoid.identity();
+	  return ((MeasuredNode) x).total;
+  }
+
+  /**
+   * private long suffixByRank(IAVLNode x, int i)
+   *
+   * Returns the measure of the items ranked i and above in the sub-tree x.
+   * Every node taken lies, with its right sub-tree, after the parts found below it.
+   */
+  private long suffixByRank(IAVLNode x, int i)
+  {
+	  long acc = monoid.identity();
+	  while (x != null)
+	  {
+		  int rank = sizeOf(x.getLeft()) + 1;
+		  if (i <= rank)
+		  {
+			  acc = monoid.combine(monoid.combine(((MeasuredNode) x).own, measureOf(x.getRight())), acc);
+			  x = x.getLeft();
+		  }
+		  else
+		  {
+			  i -= rank;
+			  x = x.getRight();
+		  }
+	  }
+	  return acc;
+  }
+
+  /**
+   * private long prefixByRank(IAVLNode x, int j)
+   *
+   * Returns the measure of the items ranked 1..j in the sub-tree x.
+   * Every node taken lies, with its left sub-tree, before the parts found below it.
+   */
+  private long prefixByRank(IAVLNode x, int j)
+  {
+	  long acc = monoid.identity();
+	  while (x != null)
+	  {
+		  int rank = sizeOf(x.getLeft()) + 1;
+		  if (j >= rank)
+		  {
+			  acc = monoid.combine(acc, monoid.combine(measureOf(x.getLeft()), ((MeasuredNode) x).own));
+			  j -= rank;
+			  x = x.getRight();
+		  }
+		  else
+			  x = x.getLeft();
+	  }
+	  return acc;
+  }
+
+  /**
+   * private long suffixByKey(IAVLNode x, int lo)
+   *
+   * Returns the measure of the items with key >= lo in the sub-tree x.
+   */
+  private long suffixByKey(IAVLNode x, int lo)
+  {
+	  long acc = monoid.identity();
+	  while (x != null)
+	  {
+		  if (x.getKey() >= lo)
+		  {
+			  acc = monoid.combine(monoid.combine(((MeasuredNode) x).own, measureOf(x.getRight())), acc);
+			  x = x.getLeft();
+		  }
+		  else
+			  x = x.getRight();
+	  }
+	  return acc;
+  }
+
+  /**
+   * private long prefixByKey(IAVLNode x, int hi)
+   *
+   * Returns the measure of the items with key <= hi in the sub-tree x.
+   */
+  private long prefixByKey(IAVLNode x, int hi)
+  {
+	  long acc = monoid.identity();
+	  while (x != null)
+	  {
+		  if (x.getKey() <= hi)
+		  {
+			  acc = monoid.combine(acc, monoid.combine(measureOf(x.getLeft()), ((MeasuredNode) x).own));
+			  x = x.getRight();
+		  }
+		  else
+			  x = x.getLeft();
+	  }
+	  return acc;
+  }
+
+  /**
+   * private static class NodeIterator
+   *
+   * In-order iterator over nodes, starting at a given node.
+   */
+  private static class NodeIterator implements Iterator<IAVLNode>
+  {
+	  private IAVLNode next;
+
+	  NodeIterator(IAVLNode first)
+	  {
+		  next = first;
+	  }
+
+	  public boolean hasNext()
+	  {
+		  return next != null;
+	  }
+
+	  public IAVLNode next()
+	  {
+		  if (next == null)
+			  throw new NoSuchElementException();
+		  IAVLNode x = next;
+		  next = findSuccessor(x);
+		  return x;
+	  }
+  }
+
+  /**
+   * private static abstract class RankSpliterator
+   *
+   * The state shared by the spliterators: the ranks lo..hi-1 still to be visited,
+   * and the node ranked lo once the first step has found it by select.
+   */
+  private static abstract class RankSpliterator
+  {
+	  final IAVLNode root;
+	  int lo;
+	  final int hi;
+	  final int characteristics;
+	  IAVLNode next; // the node ranked lo, or null until needed.
+
+	  RankSpliterator(IAVLNode root, int lo, int hi, int characteristics)
+	  {
+		  this.root = root;
+		  this.lo = lo;
+		  this.hi = hi;
+		  this.characteristics = characteristics;
+	  }
+
+	  /**
+	   * IAVLNode step()
+	   *
+	   * Returns the node ranked lo and moves past it.
+	   * @pre: lo < hi
+	   */
+	  IAVLNode step()
+	  {
+		  IAVLNode x = (next != null) ? next : select(root, lo);
+		  lo++;
+		  next = (lo < hi) ? findSuccessor(x) : null;
+		  return x;
+	  }
+
+	  /**
+	   * int split()
+	   *
+	   * Gives up the first half of the ranks left and returns the rank it now starts at,
+	   * or -1 if there are too few to split.
+	   */
+	  int split()
+	  {
+		  if (hi - lo < 2)
+			  return -1;
+		  int mid = (lo + hi) >>> 1;
+		  lo = mid;
+		  next = null;
+		  return mid;
+	  }
+
+	  public long estimateSize()
+	  {
+		  return hi - lo;
+	  }
+
+	  public int characteristics()
+	  {
+		  return characteristics;
+	  }
+
+	  /**
+	   * void checkSorted()
+	   *
+	   * Throws IllegalStateException, as getComparator must, unless the spliterator is SORTED.
+	   */
+	  void checkSorted()
+	  {
+		  if ((characteristics & Spliterator.SORTED) == 0)
+			  throw new IllegalStateException("not SORTED");
+	  }
+  }
+
+  private static class NodeSpliterator extends RankSpliterator implements Spliterator<IAVLNode>
+  {
+	  private static final Comparator<IAVLNode> KEY_ORDER = Comparator.comparingInt(IAVLNode::getKey);
+
+	  NodeSpliterator(IAVLNode root, int lo, int hi, int characteristics)
+	  {
+		  super(root, lo, hi, characteristics);
+	  }
+
+	  public boolean tryAdvance(Consumer<? super IAVLNode> action)
+	  {
+		  if (lo >= hi)
+			  return false;
+		  action.accept(step());
+		  return true;
+	  }
+
+	  public void forEachRemaining(Consumer<? super IAVLNode> action)
+	  {
+		  while (lo < hi)
+			  action.accept(step());
+	  }
+
+	  public Spliterator<IAVLNode> trySplit()
+	  {
+		  int from = lo;
+		  IAVLNode first = next;
+		  int mid = split();
+		  if (mid < 0)
+			  return null;
+		  NodeSpliterator prefix = new NodeSpliterator(root, from, mid, characteristics);
+		  prefix.next = first;
+		  return prefix;
+	  }
+
+	  public Comparator<? super IAVLNode> getComparator()
+	  {
+		  checkSorted();
+		  return KEY_ORDER;
+	  }
+  }
+
+  private static class KeySpliterator extends RankSpliterator implements Spliterator.OfInt
+  {
+	  KeySpliterator(IAVLNode root, int lo, int hi, int characteristics)
+	  {
+		  super(root, lo, hi, characteristics);
+	  }
+
+	  public boolean tryAdvance(IntConsumer action)
+	  {
+		  if (lo >= hi)
+			  return false;
+		  action.accept(step().getKey());
+		  return true;
+	  }
+
+	  public void forEachRemaining(IntConsumer action)
+	  {
+		  while (lo < hi)
+			  action.accept(step().getKey());
+	  }
+
+	  public Spliterator.OfInt trySplit()
+	  {
+		  int from = lo;
+		  IAVLNode first = next;
+		  int mid = split();
+		  if (mid < 0)
+			  return null;
+		  KeySpliterator prefix = new KeySpliterator(root, from, mid, characteristics);
+		  prefix.next = first;
+		  return prefix;
+	  }
+
+	  public Comparator<? super Integer> getComparator()
+	  {
+		  checkSorted();
+		  return null; // natural order.
+	  }
+  }
+
+  /**
+   * private static class KeyIterator
+   *
+   * In-order iterator over keys, starting at a given node.
+   */
+  private static class KeyIterator implements PrimitiveIterator.OfInt
+  {
+	  private IAVLNode next;
+
+	  KeyIterator(IAVLNode first)
+	  {
+		  next = first;
+	  }
+
+	  public boolean hasNext()
+	  {
+		  return next != null;
+	  }
+
+	  public int nextInt()
+	  {
+		  if (next == null)
+			  throw new NoSuchElementException();
+		  int k = next.getKey();
+		  next = findSuccessor(next);
+		  return k;
+	  }
+  }
+
+  /**
+   * public static AVLTree fromSorted(int[] keys, String[] infos)
+   *
+   * Builds a perfectly balanced tree holding keys[j] with info infos[j], in O(n) time.
+   * Throws IllegalArgumentException if the arrays differ in length
+   * or the keys are not strictly ascending.
+   */
+  public static AVLTree fromSorted(int[] keys, String[] infos)
+  {
+	  return fromSorted(keys, infos, (InfoArena) null);
+  }
+
+  /**
+   * public static AVLTree fromSorted(int[] keys, String[] infos, InfoArena arena)
+   *
+   * As fromSorted(keys, infos), for a tree keeping its info in arena.
+   */
+  public static AVLTree fromSorted(int[] keys, String[] infos, InfoArena arena)
+  {
+	  checkAscending(keys);
+	  return listFromArray(keys, infos, arena);
+  }
+
+  /**
+   * public static AVLTree fromSorted(int[] keys, String[] infos, Monoid monoid)
+   *
+   * As fromSorted(keys, infos), for a tree measured by monoid.
+   */
+  public static AVLTree fromSorted(int[] keys, String[] infos, Monoid monoid)
+  {
+	  checkAscending(keys);
+	  return listFromArray(keys, infos, monoid);
+  }
+
+  private static void checkAscending(int[] keys)
+  {
+	  int j = unordered(keys);
+	  if (j >= 0)
+		  throw new IllegalArgumentException("keys must be strictly ascending at index " + j);
+  }
+
+  /**
+   * private static int unordered(int[] keys)
+   *
+   * Returns the first index j with keys[j - 1] >= keys[j], or -1 if the keys are strictly ascending.
+   */
+  private static int unordered(int[] keys)
+  {
+	  for (int j = 1; j < keys.length; j++)
+	  {
+		  if (keys[j - 1] >= keys[j])
+			  return j;
+	  }
+	  return -1;
+  }
+
+  /**
+   * public void save(Path file)
+   *
+   * Writes the tree (shape, keys, sizes, heights and info) to file in the snapshot
+   * format that MappedAVLTree.open maps back, replacing the file if it exists.
+   */
+  public void save(Path file) throws IOException
+  {
+	  MappedAVLTree.write(this, file, 0);
+  }
+
+  /**
+   * public static AVLTree listFromArray(int[] keys, String[] infos)
+   *
+   * Used for building a list implemented with an AVLTree.
+   * Builds a perfectly balanced tree whose j-th ranked item is (keys[j], infos[j]), in O(n) time.
+   * Throws IllegalArgumentException if the arrays differ in length.
+   */
+  public static AVLTree listFromArray(int[] keys, String[] infos)
+  {
+	  return listFromArray(keys, infos, (InfoArena) null);
+  }
+
+  /**
+   * public static AVLTree listFromArray(int[] keys, String[] infos, InfoArena arena)
+   *
+   * As listFromArray(keys, infos), for a tree keeping its info in arena.
+   */
+  public static AVLTree listFromArray(int[] keys, String[] infos, InfoArena arena)
+  {
+	  return build(new AVLTree(arena), keys, infos);
+  }
+
+  /**
+   * public static AVLTree listFromArray(int[] keys, String[] infos, Monoid monoid)
+   *
+   * As listFromArray(keys, infos), for a tree measured by monoid.
+   */
+  public static AVLTree listFromArray(int[] keys, String[] infos, Monoid monoid)
+  {
+	  return build(new AVLTree(monoid), keys, infos);
+  }
+
+  /**
+   * private static AVLTree build(AVLTree t, int[] keys, String[] infos)
+   *
+   * Fills the empty tree t with the balanced tree over keys and infos, and returns it.
+   */
+  private static AVLTree build(AVLTree t, int[] keys, String[] infos)
+  {
+	  if (keys.length != infos.length)
+		  throw new IllegalArgumentException("keys and infos differ in length");
+	  if (keys.length == 0)
+		  return t;
+	  t.keyOrdered = unordered(keys) < 0;
+	  t.root = build(keys, infos, 0, keys.length - 1, t.arena, t.monoid);
+	  t.size = keys.length;
+	  t.minimum = minInSubTree(t.root);
+	  t.maximum = maxInSubTree(t.root);
+	  return t;
+  }
+
+  /**
+   * private static IAVLNode build(int[] keys, String[] infos, int lo, int hi, InfoArena arena, Monoid monoid)
+   *
+   * Utility function for the bulk builders. New nodes are created by newNode(.., arena, monoid).
+   * Returns the root of a balanced sub-tree over positions lo..hi, with sizes and heights set,
+   * or null if lo > hi.
+   */
+  private static IAVLNode build(int[] keys, String[] infos, int lo, int hi, InfoArena arena, Monoid monoid)
+  {
+	  if (lo > hi)
+		  return null;
+	  int mid = (lo + hi) >>> 1;
+	  AVLNode x = newNode(keys[mid], infos[mid], arena, monoid);
+	  IAVLNode l = build(keys, infos, lo, mid - 1, arena, monoid);
+	  IAVLNode r = build(keys, infos, mid + 1, hi, arena, monoid);
+	  x.setLeft(l);
+	  x.setRight(r);
+	  if (l != null)
+		  l.setParent(x);
+	  if (r != null)
+		  r.setParent(x);
+	  if (THREADED) // O(n) in all: the spines walked sum to the heights of the nodes.
+	  {
+		  if (l != null)
+			  link(maxInSubTree(l), x);
+		  if (r != null)
+			  link(x, minInSubTree(r));
+	  }
+	  x.setHeight(updateHeight(x));
+	  x.setSize(updateSize(x));
+	  x.updateMeasure();
+	  return x;
+  }
+
+  /**
+   * public static AVLTree join(AVLTree left, IAVLNode pivot, AVLTree right)
+   *
+   * Returns a tree holding the items of left, then pivot, then the items of right, in O(log n) time.
+   * The structure of left and right is handed over, both are left empty.
+   * For measured trees, a pivot that is not a node of a measured tree is replaced by a measured copy.
+   * A journal of left or right logs that tree being emptied; the returned tree is not journaled.
+   * Throws IllegalArgumentException if left and right are measured by different monoids.
+   * @pre: pivot is a detached AVLNode.
+   * @pre: keys of left < pivot's key < keys of right (for a key-ordered tree).
+   */
+  public static AVLTree join(AVLTree left, IAVLNode pivot, AVLTree right)
+  {
+	  if (left.monoid != right.monoid)
+		  throw new IllegalArgumentException("the trees are measured by different monoids");
+	  if (left.monoid != null && !(pivot instanceof MeasuredNode))
+		  pivot = newNode(pivot.getKey(), pivot.getValue(), null, left.monoid);
+	  pivot.setParent(null);
+	  link(left.maximum, pivot);
+	  link(pivot, right.minimum);
+	  AVLTree t = new AVLTree((left.arena != null) ? left.arena : right.arena, left.monoid);
+	  t.root = joinNodes(left.root, pivot, right.root);
+	  t.size = left.size + right.size + 1;
+	  t.minimum = left.empty() ? pivot : left.minimum;
+	  t.maximum = right.empty() ? pivot : right.maximum;
+	  t.keyOrdered = left.keyOrdered && right.keyOrdered
+			  && (left.empty() || left.maximum.getKey() < pivot.getKey()) && (right.empty() || pivot.getKey() < right.minimum.getKey());
+	  left.logEmptied();
+	  right.logEmptied();
+	  left.clear();
+	  right.clear();
+	  return t;
+  }
+
+  /**
+   * public void listConcat(AVLTree t)
+   *
+   * Used for a list implemented with an AVLTree.
+   * Appends the items of t after the items of this tree in O(log n) time; t is left empty.
+   * With a journal, the appended items are logged as one listInsertAll, which costs O(m) for m items;
+   * a journal of t logs t being emptied.
+   * Throws IllegalArgumentException if t is this tree or the trees are measured by different monoids.
+   */
+  public void listConcat(AVLTree t)
+  {
+	  if (t == this)
+		  throw new IllegalArgumentException("cannot concatenate a tree to itself");
+	  if (t.monoid != this.monoid)
+		  throw new IllegalArgumentException("the trees are measured by different monoids");
+	  if (t.empty())
+		  return;
+	  if (journal != null)
+		  journal.listInsertAll(this.size + 1, t.keysToArray(), t.infoToArray());
+	  t.logEmptied();
+	  keyOrdered = keyOrdered && t.keyOrdered && (this.empty() || maximum.getKey() < t.minimum.getKey());
+	  if (this.empty())
+	  {
+		  this.root = t.root;
+		  this.size = t.size;
+		  this.minimum = t.minimum;
+		  this.maximum = t.maximum;
+	  }
+	  else
+	  {
+		  this.root = joinNodes(this.root, t.root, new IAVLNode[2]);
+		  link(this.maximum, t.minimum);
+		  this.size += t.size;
+		  this.maximum = t.maximum;
+		  this.finger = null;
+	  }
+	  t.clear();
+  }
+
+  /**
+   * public static AVLTree union(AVLTree a, AVLTree b, Collision c)
+   *
+   * Returns a tree holding the keys of a and of b; for a key in both, c picks whose item stays.
+   * Join-based divide and conquer (see setNodes): O(m log(n/m + 1)) work for sizes m <= n,
+   * O(log^2 n) span, the halves running on the common ForkJoinPool.
+   * The nodes of a and b are handed over (a dropped item's node is discarded), both are left empty
+   * and their caches are cleared; their journals log them being emptied, the returned tree is not journaled.
+   * With THREADED, relinking the threads adds O(log n) per node of b.
+   * Throws IllegalArgumentException if a and b are the same tree or are measured by different monoids.
+   * @pre: a and b are key-ordered trees.
+   */
+  public static AVLTree union(AVLTree a, AVLTree b, Collision c)
+  {
+	  return setOperation(a, b, UNION, c);
+  }
+
+  /**
+   * public static AVLTree intersection(AVLTree a, AVLTree b, Collision c)
+   *
+   * Returns a tree holding the keys that are in both a and b, with the item c picks.
+   * Runs and hands over the nodes as union does.
+   * Throws IllegalArgumentException if a and b are the same tree or are measured by different monoids.
+   * @pre: a and b are key-ordered trees.
+   */
+  public static AVLTree intersection(AVLTree a, AVLTree b, Collision c)
+  {
+	  return setOperation(a, b, INTERSECTION, c);
+  }
+
+  /**
+   * public static AVLTree difference(AVLTree a, AVLTree b)
+   *
+   * Returns a tree holding the items of a whose keys are not in b.
+   * Runs and hands over the nodes as union does.
+   * Throws IllegalArgumentException if a and b are the same tree or are measured by different monoids.
+   * @pre: a and b are key-ordered trees.
+   */
+  public static AVLTree difference(AVLTree a, AVLTree b)
+  {
+	  return setOperation(a, b, DIFFERENCE, Collision.LEFT);
+  }
+
+  private static AVLTree setOperation(AVLTree a, AVLTree b, int op, Collision c)
+  {
+	  if (a == b)
+		  throw new IllegalArgumentException("a set operation needs two distinct trees");
+	  if (a.monoid != b.monoid)
+		  throw new IllegalArgumentException("the trees are measured by different monoids");
+	  IAVLNode x = ForkJoinPool.commonPool().invoke(new SetTask(op, c == Collision.LEFT, a.root, b.root));
+	  AVLTree t = wrap(x, (a.arena != null) ? a.arena : b.arena, a.monoid);
+	  t.keyOrdered = a.keyOrdered && b.keyOrdered;
+	  link(null, t.minimum);
+	  link(t.maximum, null);
+	  a.logEmptied();
+	  b.logEmptied();
+	  a.clear();
+	  b.clear();
+	  return t;
+  }
+
+  /**
+   * public AVLTree[] split(int k)
+   *
+   * Splits the tree in O(log n) time into two trees: the first holds the keys smaller than k,
+   * the second the keys bigger than or equal to k.
+   * This tree is left empty; its journal and cache move to the first tree (see handOver).
+   */
+  public AVLTree[] split(int k)
+  {
+	  IAVLNode[] parts = new IAVLNode[2];
+	  splitKey(this.root, k, parts);
+	  return handOver(wrap(parts[0], arena, monoid), wrap(parts[1], arena, monoid));
+  }
+
+  /**
+   * public AVLTree[] listSplit(int i)
+   *
+   * Used for a list implemented with an AVLTree.
+   * Splits the tree in O(log n) time into two trees: the first holds the items ranked 1..i-1,
+   * the second the items ranked i..size.
+   * This tree is left empty; its journal and cache move to the first tree (see handOver).
+   * @pre: i > 0, i <= tree.size + 1
+   */
+  public AVLTree[] listSplit(int i)
+  {
+	  IAVLNode[] parts = new IAVLNode[2];
+	  splitRank(this.root, i, parts);
+	  return handOver(wrap(parts[0], arena, monoid), wrap(parts[1], arena, monoid));
+  }
+
+  /**
+   * private AVLTree[] handOver(AVLTree left, AVLTree right)
+   *
+   * Ends a split of this tree into left and right: this tree is cleared, and its journal
+   * and (emptied) cache move to left, which carries on as this tree did. The journal logs
+   * the split as a listDeleteRange of right's items, so replaying it rebuilds left.
+   */
+  private AVLTree[] handOver(AVLTree left, AVLTree right)
+  {
+	  if (journal != null && !right.empty())
+		  journal.listDeleteRange(left.size + 1, this.size);
+	  left.journal = journal;
+	  left.cache = cache;
+	  left.keyOrdered = keyOrdered;
+	  right.keyOrdered = keyOrdered;
+	  this.clear();
+	  this.journal = null;
+	  this.cache = null;
+	  return cut(left, right);
+  }
+
+  /**
+   * private void logEmptied()
+   *
+   * Logs to this tree's journal, if there is one, that all of its items are about to be
+   * handed over to another tree, so replaying the journal rebuilds the empty tree left behind.
+   */
+  private void logEmptied()
+  {
+	  if (journal != null && !empty())
+		  journal.listDeleteRange(1, size);
+  }
+
+  /**
+   * private static AVLTree[] cut(AVLTree left, AVLTree right)
+   *
+   * Breaks the thread between the two halves of a split and returns them as a pair.
+   */
+  private static AVLTree[] cut(AVLTree left, AVLTree right)
+  {
+	  link(left.maximum, null);
+	  link(null, right.minimum);
+	  return new AVLTree[] {left, right};
+  }
+
+  /**
+   * private void clear()
+   *
+   * Resets this tree to the empty tree without touching the nodes it held,
+   * which may now belong to another tree; the cache lets go of them too.
+   */
+  private void clear()
+  {
+	  root = null;
+	  size = 0;
+	  minimum = null;
+	  maximum = null;
+	  finger = null;
+	  keyOrdered = true;
+	  if (cache != null)
+		  cache.clear();
+  }
+
+  /**
+   * private static AVLTree wrap(IAVLNode root, InfoArena arena, Monoid monoid)
+   *
+   * Returns a tree over arena and monoid whose root is the detached sub-tree root.
+   */
+  private static AVLTree wrap(IAVLNode root, InfoArena arena, Monoid monoid)
+  {
+	  AVLTree t = new AVLTree(arena, monoid);
+	  if (root != null)
+	  {
+		  t.root = root;
+		  t.size = sizeOf(root);
+		  t.minimum = minInSubTree(root);
+		  t.maximum = maxInSubTree(root);
+	  }
+	  return t;
+  }
+
+  /**
+   * private static void splitKey(IAVLNode x, int k, IAVLNode[] out)
+   *
+   * Splits the detached sub-tree x into out[0], holding the keys smaller than k,
+   * and out[1], holding the rest. Each level costs one join, O(log n) in total.
+   * If out has a third cell, the node with key k (if any) is cut out into out[2]
+   * and out[1] holds only the keys bigger than k.
+   */
+  private static void splitKey(IAVLNode x, int k, IAVLNode[] out)
+  {
+	  if (x == null)
+	  {
+		  out[0] = null;
+		  out[1] = null;
+		  if (out.length > 2)
+			  out[2] = null;
+		  return;
+	  }
+	  IAVLNode l = detachLeft(x);
+	  IAVLNode r = detachRight(x);
+	  if (k == x.getKey() && out.length > 2) // x is cut out, its sub-trees are the two parts.
+	  {
+		  out[0] = l;
+		  out[1] = r;
+		  out[2] = x;
+	  }
+	  else if (k <= x.getKey()) // x and its right sub-tree go to the right part.
+	  {
+		  splitKey(l, k, out);
+		  out[1] = joinNodes(out[1], x, r);
+	  }
+	  else
+	  {
+		  splitKey(r, k, out);
+		  out[0] = joinNodes(l, x, out[0]);
+	  }
+  }
+
+  /**
+   * private static void splitRank(IAVLNode x, int i, IAVLNode[] out)
+   *
+   * Splits the detached sub-tree x into out[0], holding its ranks 1..i-1,
+   * and out[1], holding the rest. Each level costs one join, O(log n) in total.
+   */
+  private static void splitRank(IAVLNode x, int i, IAVLNode[] out)
+  {
+	  if (x == null)
+	  {
+		  out[0] = null;
+		  out[1] = null;
+		  return;
+	  }
+	  IAVLNode l = detachLeft(x);
+	  IAVLNode r = detachRight(x);
+	  int rank = sizeOf(l) + 1;
+	  if (i <= rank) // x and its right sub-tree go to the right part.
+	  {
+		  splitRank(l, i, out);
+		  out[1] = joinNodes(out[1], x, r);
+	  }
+	  else
+	  {
+		  splitRank(r, i - rank, out);
+		  out[0] = joinNodes(l, x, out[0]);
+	  }
+  }
+
+  /**
+   * public int insertAll(int[] keys, String[] infos)
+   *
+   * inserts the items (keys[j], infos[j]) to the AVL tree as one batch.
+   * The batch is sorted and merged into the tree with split/join (see unionNodes),
+   * costing O(m log(n/m + 1)) for m items instead of m separate insertions.
+   * As with insert, a key that already exists in the tree (or earlier in the batch) is rejected.
+   * returns the number of items inserted.
+   * Throws IllegalArgumentException if the arrays differ in length.
+   */
+  public int insertAll(int[] keys, String[] infos)
+  {
+	  if (keys.length != infos.length)
+		  throw new IllegalArgumentException("keys and infos differ in length");
+	  if (journal != null)
+		  journal.insertAll(keys, infos);
+	  // sort (key, position) pairs packed in longs, so equal keys keep their batch order.
+	  long[] order = new long[keys.length];
+	  for (int j = 0; j < keys.length; j++)
+		  order[j] = ((long) keys[j] << 32) | j;
+	  Arrays.sort(order);
+	  int m = 0;
+	  int[] sortedKeys = new int[keys.length];
+	  String[] sortedInfos = new String[keys.length];
+	  for (int j = 0; j < order.length; j++)
+	  {
+		  int k = (int) (order[j] >> 32);
+		  if (m > 0 && sortedKeys[m - 1] == k) // a later duplicate inside the batch.
+			  continue;
+		  sortedKeys[m] = k;
+		  sortedInfos[m] = infos[(int) order[j]];
+		  m++;
+	  }
+	  int before = this.size;
+	  IAVLNode[] parts = new IAVLNode[3];
+	  Runs runs = THREADED ? new Runs() : null;
+	  resetRoot(unionNodes(this.root, sortedKeys, sortedInfos, 0, m - 1, parts, runs, arena, monoid));
+	  for (int j = 0; runs != null && j < runs.count; j += 2) // thread each run of new nodes to its neighbours.
+	  {
+		  link(climbPredecessor(runs.ends[j]), runs.ends[j]);
+		  link(runs.ends[j + 1], climbSuccessor(runs.ends[j + 1]));
+	  }
+	  return this.size - before;
+  }
+
+  /**
+   * public int deleteAll(int[] keys)
+   *
+   * deletes the items with the given keys from the tree, if they are there, as one batch.
+   * The batch is sorted and cut out of the tree with split/join (see differenceNodes),
+   * costing O(m log(n/m + 1)) for m keys instead of m separate deletions.
+   * returns the number of items deleted.
+   */
+  public int deleteAll(int[] keys)
+  {
+	  if (journal != null)
+		  journal.deleteAll(keys);
+	  int[] sorted = keys.clone();
+	  Arrays.sort(sorted);
+	  if (cache != null)
+		  for (int k : sorted)
+			  cache.remove(k);
+	  int before = this.size;
+	  IAVLNode[] parts = new IAVLNode[3];
+	  resetRoot(differenceNodes(this.root, sorted, 0, sorted.length - 1, parts));
+	  return before - this.size;
+  }
+
+  /**
+   * public void listInsertAll(int i, int[] keys, String[] infos)
+   *
+   * Used for a list implemented with an AVLTree.
+   * Inserts the items (keys[j], infos[j]) as one block ranked i..i+m-1, in O(m + log n) time:
+   * the block is built as a balanced sub-tree and grafted in with one split and two joins,
+   * instead of m separate listInserts.
+   * Throws IllegalArgumentException if the arrays differ in length.
+   * @pre: i > 0, i <= tree.size + 1
+   */
+  public void listInsertAll(int i, int[] keys, String[] infos)
+  {
+	  if (keys.length != infos.length)
+		  throw new IllegalArgumentException("keys and infos differ in length");
+	  if (keys.length == 0)
+		  return;
+	  if (journal != null)
+		  journal.listInsertAll(i, keys, infos);
+	  keyOrdered = false;
+	  IAVLNode block = build(keys, infos, 0, keys.length - 1, arena, monoid);
+	  IAVLNode[] parts = new IAVLNode[2];
+	  splitRank(this.root, i, parts);
+	  IAVLNode left = parts[0];
+	  IAVLNode right = parts[1];
+	  if (THREADED)
+	  {
+		  link((left == null) ? null : maxInSubTree(left), minInSubTree(block));
+		  link(maxInSubTree(block), (right == null) ? null : minInSubTree(right));
+	  }
+	  resetRoot(joinNodes(joinNodes(left, block, parts), right, parts));
+  }
+
+  /**
+   * public int listDeleteRange(int i, int j)
+   *
+   * Used for a list implemented with an AVLTree.
+   * Deletes the items ranked i..j in O(log n) time, by cutting them out with two splits
+   * and joining the rest, instead of j-i+1 separate listDeletes.
+   * With a cache, the deleted keys are also dropped from it, which costs O(j-i+1).
+   * returns the number of items deleted.
+   * @pre: i > 0, j <= tree.size, i <= j + 1
+   */
+  public int listDeleteRange(int i, int j)
+  {
+	  if (i > j)
+		  return 0;
+	  if (journal != null)
+		  journal.listDeleteRange(i, j);
+	  IAVLNode[] parts = new IAVLNode[2];
+	  splitRank(this.root, j + 1, parts);
+	  IAVLNode right = parts[1];
+	  splitRank(parts[0], i, parts);
+	  IAVLNode left = parts[0];
+	  IAVLNode cut = parts[1];
+	  int n = sizeOf(cut);
+	  IAVLNode first = minInSubTree(cut);
+	  IAVLNode last = maxInSubTree(cut);
+	  if (cache != null)
+	  {
+		  IAVLNode x = first;
+		  for (int c = 0; c < n; c++, x = findSuccessor(x))
+			  cache.remove(x.getKey());
+	  }
+	  if (THREADED)
+	  {
+		  link((left == null) ? null : maxInSubTree(left), (right == null) ? null : minInSubTree(right));
+		  link(null, first); // the cut block leaves the thread.
+		  link(last, null);
+	  }
+	  resetRoot(joinNodes(left, right, parts));
+	  return n;
+  }
+
+  /**
+   * private void resetRoot(IAVLNode newRoot)
+   *
+   * Points this tree at a restructured detached root and recomputes size, minimum and maximum.
+   */
+  private void resetRoot(IAVLNode newRoot)
+  {
+	  root = newRoot;
+	  size = sizeOf(newRoot);
+	  minimum = (newRoot == null) ? null : minInSubTree(newRoot);
+	  maximum = (newRoot == null) ? null : maxInSubTree(newRoot);
+	  finger = null;
+  }
+
+  /**
+   * private static IAVLNode unionNodes(IAVLNode a, int[] keys, String[] infos, int lo, int hi, IAVLNode[] parts, Runs runs, InfoArena arena, Monoid monoid)
+   *
+   * Merges the sorted, distinct keys[lo..hi] into the detached sub-tree a and returns the new root.
+   * Splits a by the middle key, recurses on both halves and joins them back,
+   * creating nodes only for keys a does not hold.
+   * If runs is not null, each run of new nodes is threaded inside and recorded in it,
+   * to be linked to its neighbours.
+   */
+  private static IAVLNode unionNodes(IAVLNode a, int[] keys, String[] infos, int lo, int hi, IAVLNode[] parts, Runs runs, InfoArena arena, Monoid monoid)
+  {
+	  if (lo > hi)
+		  return a;
+	  if (a == null)
+	  {
+		  IAVLNode run = build(keys, infos, lo, hi, arena, monoid);
+		  if (runs != null)
+			  runs.add(minInSubTree(run), maxInSubTree(run));
+		  return run;
+	  }
+	  int mid = (lo + hi) >>> 1;
+	  splitKey(a, keys[mid], parts);
+	  IAVLNode less = parts[0];
+	  IAVLNode greater = parts[1];
+	  IAVLNode pivot = parts[2];
+	  if (pivot == null) // a new key.
+	  {
+		  pivot = newNode(keys[mid], infos[mid], arena, monoid);
+		  if (runs != null)
+			  runs.add(pivot, pivot);
+	  }
+	  IAVLNode l = unionNodes(less, keys, infos, lo, mid - 1, parts, runs, arena, monoid);
+	  IAVLNode r = unionNodes(greater, keys, infos, mid + 1, hi, parts, runs, arena, monoid);
+	  return joinNodes(l, pivot, r);
+  }
+
+  /**
+   * private static final class Runs
+   *
+   * The first and last nodes of each run of new nodes unionNodes hangs into a tree.
+   */
+  private static final class Runs
+  {
+	  IAVLNode[] ends = new IAVLNode[16];
+	  int count = 0; // cells used in ends, two per run.
+
+	  void add(IAVLNode first, IAVLNode last)
+	  {
+		  if (count == ends.length)
+			  ends = Arrays.copyOf(ends, 2 * count);
+		  ends[count++] = first;
+		  ends[count++] = last;
+	  }
+  }
+
+  /**
+   * private static IAVLNode differenceNodes(IAVLNode a, int[] keys, int lo, int hi, IAVLNode[] parts)
+   *
+   * Removes the sorted keys[lo..hi] from the detached sub-tree a and returns the new root.
+   * Splits a by the middle key, drops the matching node, recurses on both halves and joins them back.
+   */
+  private static IAVLNode differenceNodes(IAVLNode a, int[] keys, int lo, int hi, IAVLNode[] parts)
+  {
+	  if (a == null || lo > hi)
+		  return a;
+	  int mid = (lo + hi) >>> 1;
+	  splitKey(a, keys[mid], parts);
+	  IAVLNode less = parts[0];
+	  IAVLNode greater = parts[1];
+	  if (parts[2] != null) // the dropped node leaves the thread.
+		  unthread(parts[2]);
+	  IAVLNode l = differenceNodes(less, keys, lo, mid - 1, parts);
+	  IAVLNode r = differenceNodes(greater, keys, mid + 1, hi, parts);
+	  return joinNodes(l, r, parts);
+  }
+
+  private static final int UNION = 0;
+  private static final int INTERSECTION = 1;
+  private static final int DIFFERENCE = 2;
+
+  /**
+   * private static IAVLNode setNodes(int op, boolean keepLeft, IAVLNode a, IAVLNode b, IAVLNode[] parts)
+   *
+   * Returns the root of op (UNION, INTERSECTION or DIFFERENCE) over the detached sub-trees a and b.
+   * Splits a by the key of b's root, recurses on the two pairs of halves and joins the results
+   * back around the node kept for that key, if any (see meet).
+   * Each level of b costs a split and a join of a, which sums to O(m log(n/m + 1)).
+   */
+  private static IAVLNode setNodes(int op, boolean keepLeft, IAVLNode a, IAVLNode b, IAVLNode[] parts)
+  {
+	  if (a == null || b == null)
+		  return setBase(op, a, b);
+	  IAVLNode l2 = detachLeft(b);
+	  IAVLNode r2 = detachRight(b);
+	  splitKey(a, b.getKey(), parts);
+	  IAVLNode r1 = parts[1];
+	  IAVLNode twin = parts[2];
+	  IAVLNode l = setNodes(op, keepLeft, parts[0], l2, parts);
+	  IAVLNode r = setNodes(op, keepLeft, r1, r2, parts);
+	  return meet(op, keepLeft, l, b, twin, r, parts);
+  }
+
+  /**
+   * private static IAVLNode setBase(int op, IAVLNode a, IAVLNode b)
+   *
+   * Returns op over the detached sub-trees a and b when one of them is null.
+   */
+  private static IAVLNode setBase(int op, IAVLNode a, IAVLNode b)
+  {
+	  if (op == UNION)
+		  return (a != null) ? a : b;
+	  if (op == INTERSECTION)
+		  return null;
+	  return a;
+  }
+
+  /**
+   * private static IAVLNode meet(int op, boolean keepLeft, IAVLNode l, IAVLNode x, IAVLNode twin, IAVLNode r, IAVLNode[] parts)
+   *
+   * Joins the results l and r around the node op keeps for x's key: x (from the second tree),
+   * twin (the node of the first tree with that key, or null), or none.
+   * With THREADED, also threads the keeper between the last node of l and the first of r.
+   */
+  private static IAVLNode meet(int op, boolean keepLeft, IAVLNode l, IAVLNode x, IAVLNode twin, IAVLNode r, IAVLNode[] parts)
+  {
+	  IAVLNode pivot = null;
+	  if (op == UNION)
+		  pivot = (twin != null && keepLeft) ? twin : x;
+	  else if (op == INTERSECTION && twin != null)
+		  pivot = keepLeft ? twin : x;
+	  if (THREADED)
+	  {
+		  IAVLNode last = (l == null) ? null : maxInSubTree(l);
+		  IAVLNode first = (r == null) ? null : minInSubTree(r);
+		  if (pivot == null)
+			  link(last, first);
+		  else
+		  {
+			  link(last, pivot);
+			  link(pivot, first);
+		  }
+	  }
+	  if (pivot == null)
+		  return joinNodes(l, r, parts);
+	  return joinNodes(l, pivot, r);
+  }
+
+  /**
+   * private static class SetTask
+   *
+   * setNodes on the common ForkJoinPool: the two recursive calls run as a forked pair,
+   * each with its own parts array, until a pair of sub-trees is down to PARALLEL_GRAIN nodes.
+   */
+  private static class SetTask extends RecursiveTask<IAVLNode>
+  {
+	  private static final long serialVersionUID = 1L;
+
+	  private final int op;
+	  private final boolean keepLeft;
+	  private final IAVLNode a;
+	  private final IAVLNode b;
+
+	  SetTask(int op, boolean keepLeft, IAVLNode a, IAVLNode b)
+	  {
+		  this.op = op;
+		  this.keepLeft = keepLeft;
+		  this.a = a;
+		  this.b = b;
+	  }
+
+	  protected IAVLNode compute()
+	  {
+		  IAVLNode[] parts = new IAVLNode[3];
+		  if (a == null || b == null || sizeOf(a) + sizeOf(b) <= PARALLEL_GRAIN)
+			  return setNodes(op, keepLeft, a, b, parts);
+		  IAVLNode l2 = detachLeft(b);
+		  IAVLNode r2 = detachRight(b);
+		  splitKey(a, b.getKey(), parts);
+		  SetTask left = new SetTask(op, keepLeft, parts[0], l2);
+		  left.fork();
+		  IAVLNode twin = parts[2];
+		  IAVLNode r = new SetTask(op, keepLeft, parts[1], r2).compute();
+		  return meet(op, keepLeft, left.join(), b, twin, r, parts);
+	  }
+  }
+
+  /**
+   * private static IAVLNode joinNodes(IAVLNode l, IAVLNode r, IAVLNode[] parts)
+   *
+   * Joins the detached sub-trees l and r without a pivot, by borrowing the first node of r.
+   */
+  private static IAVLNode joinNodes(IAVLNode l, IAVLNode r, IAVLNode[] parts)
+  {
+	  if (l == null)
+		  return r;
+	  if (r == null)
+		  return l;
+	  splitRank(r, 2, parts);
+	  return joinNodes(l, parts[0], parts[1]);
+  }
+
+  private static IAVLNode detachLeft(IAVLNode x)
+  {
+	  IAVLNode l = x.getLeft();
+	  x.setLeft(null);
+	  if (l != null)
+		  l.setParent(null);
+	  return l;
+  }
+
+  private static IAVLNode detachRight(IAVLNode x)
+  {
+	  IAVLNode r = x.getRight();
+	  x.setRight(null);
+	  if (r != null)
+		  r.setParent(null);
+	  return r;
+  }
+
+  /**
+   * private static IAVLNode joinNodes(IAVLNode l, IAVLNode x, IAVLNode r)
+   *
+   * Joins the detached sub-trees l and r with the detached node x between them
+   * and returns the root of the result.
+   * Runs in O(|height(l) - height(r)| + 1): x is hung on the spine of the taller
+   * sub-tree at the height of the shorter one, then the path above it is rebalanced.
+   */
+  private static IAVLNode joinNodes(IAVLNode l, IAVLNode x, IAVLNode r)
+  {
+	  int hl = heightOf(l);
+	  int hr = heightOf(r);
+	  IAVLNode p = null; // the node x is hung under.
+	  if (hl > hr + 1)
+	  {
+		  IAVLNode c = l;
+		  while (heightOf(c) > hr + 1)
+		  {
+			  p = c;
+			  c = c.getRight();
+		  }
+		  l = c;
+	  }
+	  else if (hr > hl + 1)
+	  {
+		  IAVLNode c = r;
+		  while (heightOf(c) > hl + 1)
+		  {
+			  p = c;
+			  c = c.getLeft();
+		  }
+		  r = c;
+	  }
+	  x.setLeft(l);
+	  x.setRight(r);
+	  if (l != null)
+		  l.setParent(x);
+	  if (r != null)
+		  r.setParent(x);
+	  x.setParent(p);
+	  x.setHeight(updateHeight(x));
+	  ((AVLNode) x).setSize(updateSize(x));
+	  ((AVLNode) x).updateMeasure();
+	  if (p == null)
+		  return x;
+	  if (hl > hr)
+		  p.setRight(x);
+	  else
+		  p.setLeft(x);
+	  // update loop on the detached path.
+	  IAVLNode y = p;
+	  IAVLNode top = p;
+	  while (y != null)
+	  {
+		  ((AVLNode) y).setSize(updateSize(y));
+		  ((AVLNode) y).updateMeasure();
+		  y.setHeight(updateHeight(y));
+		  int BF = getBalance(y);
+		  if (BF == 2)
+		  {
+			  if (getBalance(y.getLeft()) == -1) // Left then Right Case
+				  rotateLeft(y.getLeft());
+			  y = rotateRight(y);
+		  }
+		  else if (BF == -2)
+		  {
+			  if (getBalance(y.getRight()) == 1) // Right then Left Case
+				  rotateRight(y.getRight());
+			  y = rotateLeft(y);
+		  }
+		  top = y;
+		  y = y.getParent();
+	  }
+	  return top;
+  }
+
+  /**
+   * private static int heightOf(IAVLNode x)
+   *
+   * Returns the height of x, or -1 if x is null.
+   */
+  private static int heightOf(IAVLNode x)
+  {
+	  if (x == null)
+		  return -1;
+	  return x.getHeight();
+  }
+
+   /**
+    * public int size()
+    *
+    * Returns the number of nodes in the tree.
+    *
+    * precondition: none
+    * postcondition: none
+    */
+   public int size()
+   {
+	   return size;
+   }
+   
+     /**
+    * public int getRoot()
+    *
+    * Returns the root AVL node, or null if the tree is empty
+    *
+    * precondition: none
+    * postcondition: none
+    */
+   public IAVLNode getRoot()
+   {
+	   return root;
+   }
+
+	/**
+	   * public interface IAVLNode
+	   * ! Do not delete or modify this - otherwise all tests will fail !
+	   */
+	public interface IAVLNode{	
+		public int getKey(); //returns node's key 
+		public String getValue(); //returns node's value [info]
+		public void setLeft(IAVLNode node); //sets left child
+		public IAVLNode getLeft(); //returns left child (if there is no left child return null)
+		public void setRight(IAVLNode node); //sets right child
+		public IAVLNode getRight(); //returns right child (if there is no right child return null)
+		public void setParent(IAVLNode node); //sets parent
+		public IAVLNode getParent(); //returns the parent (if there is no parent return null)
+    	public void setHeight(int height); // sets the height of the node
+    	public int getHeight(); // Returns the height of the node 
+	}
+
+   /**
+   * public class AVLNode
+   *
+   * If you wish to implement classes other than AVLTree
+   * (for example AVLNode), do it in this file, not in 
+   * another file.
+   * This class can and must be modified.
+   * (It must implement IAVLNode)
+   */
+  public static class AVLNode implements IAVLNode{
+	  	private int key;
+		private String value;
+		private IAVLNode left;
+		private IAVLNode right;
+		private IAVLNode parent;
+		private AVLNode prev; // in-order neighbours if THREADED, see AVLTree.link.
+		private AVLNode next;
+		private int height = 0;
+		private int size = 1;
+	  	
+		public AVLNode(int key, String value)
+		{
+			this.key = key;
+			this.value = value;
+			
+		}
+		
+		public int getKey()
+		{
+			return key;
+		}
+		
+		public String getValue()
+		{
+			return value;
+		}
+
+		/**
+		 * public CharSequence getValueChars()
+		 *
+		 * Returns the info as a CharSequence, which for an arena-backed node may be
+		 * a view over the arena rather than a new String.
+		 */
+		public CharSequence getValueChars()
+		{
+			return value;
+		}
+
+		/**
+		 * public boolean appendValueTo(StringBuilder dst)
+		 *
+		 * Appends the info to dst; returns false, appending nothing, if it is null.
+		 */
+		public boolean appendValueTo(StringBuilder dst)
+		{
+			if (value == null)
+				return false;
+			dst.append(value);
+			return true;
+		}
+		
+		public void setLeft(IAVLNode node)
+		{
+			left = node;
+		}
+		
+		public IAVLNode getLeft()
+		{
+			return left;
+		}
+		
+		public void setRight(IAVLNode node)
+		{
+			right = node;
+		}
+		
+		public IAVLNode getRight()
+		{
+			return right;
+		}
+		
+		public void setParent(IAVLNode node)
+		{
+			parent = node;
+		}
+		
+		public IAVLNode getParent()
+		{
+			return parent;
+		}
+		
+		public void setHeight(int height)
+		{
+		  this.height = height;
+		}
+		
+		public int getHeight()
+		{
+			return height;
+		}
+		
+		public void setSize(int size)
+		{
+			this.size = size;
+		}
+		
+		public int getSize()
+	    {
+	    	return size;
+	    }
+
+		/**
+		 * public AVLNode getPrev()
+		 *
+		 * Returns the node's in-order predecessor, or null; always null unless THREADED.
+		 */
+		public AVLNode getPrev()
+		{
+			return prev;
+		}
+
+		/**
+		 * public AVLNode getNext()
+		 *
+		 * Returns the node's in-order successor, or null; always null unless THREADED.
+		 */
+		public AVLNode getNext()
+		{
+			return next;
+		}
+
+		/**
+		 * void updateMeasure()
+		 *
+		 * Recomputes the cached measure of the node's sub-tree from its children,
+		 * alongside setSize. Does nothing unless the node is a MeasuredNode.
+		 */
+		void updateMeasure()
+		{
+		}
+
+  }
+
+  /**
+   * static final class MeasuredNode
+   *
+   * An AVLNode of a measured tree: it caches its own item's measure and the
+   * combined measure of its sub-tree. It keeps its monoid, so it can move
+   * between trees by join and split.
+   */
+  static final class MeasuredNode extends AVLNode {
+	  private final Monoid monoid;
+	  private final long own;
+	  private long total;
+
+	  MeasuredNode(int key, String value, Monoid monoid)
+	  {
+		  super(key, value);
+		  this.monoid = monoid;
+		  this.own = monoid.measure(key, value);
+		  this.total = own;
+	  }
+
+	  void updateMeasure()
+	  {
+		  long t = own;
+		  if (getLeft() != null)
+			  t = monoid.combine(((MeasuredNode) getLeft()).total, t);
+		  if (getRight() != null)
+			  t = monoid.combine(t, ((MeasuredNode) getRight()).total);
+		  total = t;
+	  }
+  }
+
+  /**
+   * static class ArenaNode
+   *
+   * An AVLNode whose info lives in an InfoArena and is decoded on demand.
+   * It keeps its arena, so it can move between trees by join and split.
+   */
+  static class ArenaNode extends AVLNode {
+	  private final InfoArena arena;
+	  private final int ref;
+
+	  ArenaNode(int key, InfoArena arena, int ref)
+	  {
+		  super(key, null);
+		  this.arena = arena;
+		  this.ref = ref;
+	  }
+
+	  public String getValue()
+	  {
+		  return arena.get(ref);
+	  }
+
+	  public CharSequence getValueChars()
+	  {
+		  return arena.chars(ref);
+	  }
+
+	  public boolean appendValueTo(StringBuilder dst)
+	  {
+		  return arena.appendTo(ref, dst);
+	  }
+  }
+
+}
+
+
+
+
@@ -0,0 +1,214 @@
+package io.github.noyshabtay.treelist;
+
+/**
+ *
+ * AVLTreeMetrics
+ *
+ * Optional operation metrics for AVLTree: per-operation counts and latency
+ * histograms, single and double rotations, update-loop steps, descent depth
+ * and tree height, plus one JDK Flight Recorder event per operation.
+ *
+ * Metrics are switched on for the whole JVM with -Dtreelist.metrics=true.
+ * ENABLED is a static final constant, so with metrics off every
+ * "if (AVLTreeMetrics.ENABLED)" guard on the hot path is dead code the JIT removes,
+ * and trees do not even allocate a metrics object.
+ * A tree's metrics are not thread-safe, just like the tree itself.
+ *
+ */
+public final class AVLTreeMetrics {
+
+	public static final boolean ENABLED = Boolean.getBoolean("treelist.metrics");
+
+	/**
+	 * The instrumented AVLTree operations.
+	 */
+	public enum Operation {
+		SEARCH, SELECT, INSERT, DELETE, LIST_INSERT, LIST_DELETE
+	}
+
+	private static final int OPERATIONS = Operation.values().length;
+	private static final int BUCKETS = 64; // bucket b counts latencies in [2^b, 2^(b+1)) ns.
+
+	private final long[] counts = new long[OPERATIONS];
+	private final long[][] latencies = new long[OPERATIONS][BUCKETS];
+	private long singleRotations;
+	private long doubleRotations;
+	private long updateSteps;
+	private long descentSteps;
+
+	// scratch of the running operation, reported in its JFR event.
+	private int opRotations;
+	private int opUpdateSteps;
+	private int opDepth;
+
+	AVLTreeMetrics()
+	{
+	}
+
+	/**
+	 * long begin()
+	 *
+	 * Starts measuring an operation and returns its start time.
+	 */
+	long begin()
+	{
+		opRotations = 0;
+		opUpdateSteps = 0;
+		opDepth = 0;
+		return System.nanoTime();
+	}
+
+	/**
+	 * void rotation(int n)
+	 *
+	 * Records a rebalance of n rotations (1 single, 2 double) made by rotationsManager.
+	 */
+	void rotation(int n)
+	{
+		if (n == 1)
+			singleRotations++;
+		else
+			doubleRotations++;
+		opRotations += n;
+	}
+
+	/**
+	 * void updateStep()
+	 *
+	 * Records one node visited by an update loop.
+	 */
+	void updateStep()
+	{
+		updateSteps++;
+		opUpdateSteps++;
+	}
+
+	/**
+	 * void descent(int depth)
+	 *
+	 * Records the number of nodes visited by a searchNode or select descent.
+	 */
+	void descent(int depth)
+	{
+		descentSteps += depth;
+		opDepth += depth;
+	}
+
+	/**
+	 * void end(Operation op, long start, int height)
+	 *
+	 * Finishes measuring op, started at start, on a tree of the given height.
+	 */
+	void end(Operation op, long start, int height)
+	{
+		long nanos = System.nanoTime() - start;
+		counts[op.ordinal()]++;
+		latencies[op.ordinal()][63 - Long.numberOfLeadingZeros(Math.max(nanos, 1))]++;
+		AVLTreeOperationEvent event = new AVLTreeOperationEvent();
+		if (event.shouldCommit())
+		{
+			event.operation = op.name();
+			event.latency = nanos;
+			event.rotations = opRotations;
+			event.updateSteps = opUpdateSteps;
+			event.depth = opDepth;
+			event.height = height;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Snapshot snapshot(int height)
+	 *
+	 * Returns a copy of the counters of a tree of the given height.
+	 */
+	Snapshot snapshot(int height)
+	{
+		long[][] copy = new long[OPERATIONS][];
+		for (int op = 0; op < OPERATIONS; op++)
+			copy[op] = latencies[op].clone();
+		return new Snapshot(counts.clone(), copy, singleRotations, doubleRotations, updateSteps, descentSteps, height);
+	}
+
+	/**
+	 *
+	 * Snapshot
+	 *
+	 * An immutable copy of a tree's metrics.
+	 *
+	 */
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long[][] latencies;
+		private final long singleRotations;
+		private final long doubleRotations;
+		private final long updateSteps;
+		private final long descentSteps;
+		private final int height;
+
+		private Snapshot(long[] counts, long[][] latencies, long singleRotations, long doubleRotations,
+				long updateSteps, long descentSteps, int height)
+		{
+			this.counts = counts;
+			this.latencies = latencies;
+			this.singleRotations = singleRotations;
+			this.doubleRotations = doubleRotations;
+			this.updateSteps = updateSteps;
+			this.descentSteps = descentSteps;
+			this.height = height;
+		}
+
+		public long getCount(Operation op)
+		{
+			return counts[op.ordinal()];
+		}
+
+		/**
+		 * public long getLatencyPercentile(Operation op, double p)
+		 *
+		 * Returns an upper bound, in nanoseconds, on the p-th percentile (0 < p <= 100)
+		 * of op's latency, or 0 if op never ran. Buckets are powers of two.
+		 */
+		public long getLatencyPercentile(Operation op, double p)
+		{
+			long[] buckets = latencies[op.ordinal()];
+			long total = counts[op.ordinal()];
+			if (total == 0)
+				return 0;
+			long rank = (long) Math.ceil(total * p / 100.0);
+			long seen = 0;
+			for (int b = 0; b < BUCKETS; b++)
+			{
+				seen += buckets[b];
+				if (seen >= rank)
+					return (b == 62) ? Long.MAX_VALUE : (1L << (b + 1)) - 1;
+			}
+			return Long.MAX_VALUE;
+		}
+
+		public long getSingleRotations()
+		{
+			return singleRotations;
+		}
+
+		public long getDoubleRotations()
+		{
+			return doubleRotations;
+		}
+
+		public long getUpdateSteps()
+		{
+			return updateSteps;
+		}
+
+		public long getDescentSteps()
+		{
+			return descentSteps;
+		}
+
+		public int getHeight()
+		{
+			return height;
+		}
+	}
+}
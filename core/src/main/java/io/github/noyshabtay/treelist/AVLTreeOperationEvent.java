@@ -0,0 +1,43 @@
+package io.github.noyshabtay.treelist;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ *
+ * AVLTreeOperationEvent
+ *
+ * JDK Flight Recorder event emitted for every AVLTree operation when
+ * AVLTreeMetrics are enabled.
+ *
+ */
+@Name("io.github.noyshabtay.treelist.AVLTreeOperation")
+@Label("AVLTree Operation")
+@Category("TreeList")
+@Description("One AVLTree operation with its rebalancing work")
+@StackTrace(false)
+class AVLTreeOperationEvent extends jdk.jfr.Event {
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Latency")
+	@Timespan(Timespan.NANOSECONDS)
+	long latency;
+
+	@Label("Rotations")
+	int rotations;
+
+	@Label("Update Loop Steps")
+	int updateSteps;
+
+	@Label("Descent Depth")
+	int depth;
+
+	@Label("Tree Height")
+	int height;
+}
@@ -0,0 +1,509 @@
+package io.github.noyshabtay.treelist;
+
+import java.util.Arrays;
+
+/**
+ *
+ * BPlusTree
+ *
+ * A positional B+-tree (an order-statistics tree with wide fanout) holding a
+ * list of (key, info) items.
+ *
+ * Items sit in leaves of up to CAPACITY entries, in contiguous key and info
+ * arrays. Leaves are linked to their neighbours, so a scan is a walk over
+ * arrays. Inner nodes hold up to CAPACITY children, each with the number
+ * of items in its sub-tree. Reaching position i visits O(log_B n) nodes;
+ * inside each node it is a linear scan over a short int array, where an
+ * AVLTree would chase about 1.44 log2(n) pointers.
+ *
+ * Nodes split when full, and merge with or borrow from a sibling when they
+ * fall under MIN entries.
+ *
+ */
+public class BPlusTree implements IListBackend {
+
+	static final int CAPACITY = 64;
+	static final int MIN = CAPACITY / 4;
+
+	private Node root = new Leaf();
+	private Leaf first; // the leftmost leaf.
+	private int size = 0;
+
+	public BPlusTree()
+	{
+		first = (Leaf) root;
+	}
+
+	/**
+	 * public static BPlusTree fromArray(int[] keys, String[] infos)
+	 *
+	 * Builds a tree whose jth item is (keys[j], infos[j]) in O(n) time,
+	 * filling leaves and inner nodes to about 3/4 so later inserts do not split at once.
+	 * Throws IllegalArgumentException if the arrays differ in length.
+	 */
+	public static BPlusTree fromArray(int[] keys, String[] infos)
+	{
+		if (keys.length != infos.length)
+			throw new IllegalArgumentException("keys and infos differ in length");
+		BPlusTree t = new BPlusTree();
+		int n = keys.length;
+		if (n == 0)
+			return t;
+		int fill = CAPACITY * 3 / 4;
+		Node[] level = new Node[(n + fill - 1) / fill];
+		Leaf prev = null;
+		for (int j = 0, at = 0; j < level.length; j++)
+		{
+			Leaf leaf = new Leaf();
+			leaf.n = share(n, level.length, j);
+			System.arraycopy(keys, at, leaf.keys, 0, leaf.n);
+			System.arraycopy(infos, at, leaf.infos, 0, leaf.n);
+			at += leaf.n;
+			leaf.prev = prev;
+			if (prev != null)
+				prev.next = leaf;
+			prev = leaf;
+			level[j] = leaf;
+		}
+		t.first = (Leaf) level[0];
+		while (level.length > 1)
+		{
+			Node[] up = new Node[(level.length + fill - 1) / fill];
+			for (int j = 0, at = 0; j < up.length; j++)
+			{
+				Inner p = new Inner();
+				p.n = share(level.length, up.length, j);
+				for (int c = 0; c < p.n; c++)
+				{
+					p.children[c] = level[at + c];
+					p.counts[c] = level[at + c].count();
+				}
+				at += p.n;
+				up[j] = p;
+			}
+			level = up;
+		}
+		t.root = level[0];
+		t.size = n;
+		return t;
+	}
+
+	/**
+	 * private static int share(int n, int parts, int j)
+	 *
+	 * Returns the size of the jth of parts near-equal parts of n.
+	 */
+	private static int share(int n, int parts, int j)
+	{
+		return n / parts + ((j < n % parts) ? 1 : 0);
+	}
+
+   /**
+    * public int size()
+    *
+    * Returns the number of items in the tree.
+    */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * public int keyAt(int i)
+	 *
+	 * Returns the key of the ith item.
+	 * @pre: 0 <= i < size
+	 */
+	public int keyAt(int i)
+	{
+		Node x = root;
+		while (x instanceof Inner)
+		{
+			Inner p = (Inner) x;
+			int c = 0;
+			while (i >= p.counts[c])
+				i -= p.counts[c++];
+			x = p.children[c];
+		}
+		return ((Leaf) x).keys[i];
+	}
+
+	/**
+	 * public String infoAt(int i)
+	 *
+	 * Returns the info of the ith item.
+	 * @pre: 0 <= i < size
+	 */
+	public String infoAt(int i)
+	{
+		Node x = root;
+		while (x instanceof Inner)
+		{
+			Inner p = (Inner) x;
+			int c = 0;
+			while (i >= p.counts[c])
+				i -= p.counts[c++];
+			x = p.children[c];
+		}
+		return ((Leaf) x).infos[i];
+	}
+
+	/**
+	 * public void forEach(int i, int j, ItemVisitor v)
+	 *
+	 * Visits items i..j-1 in order: one descent to the leaf of i, then a walk
+	 * along the leaf arrays.
+	 * @pre: 0 <= i <= j <= size
+	 */
+	public void forEach(int i, int j, ItemVisitor v)
+	{
+		if (i >= j)
+			return;
+		int left = j - i;
+		Node x = root;
+		while (x instanceof Inner)
+		{
+			Inner p = (Inner) x;
+			int c = 0;
+			while (i >= p.counts[c])
+				i -= p.counts[c++];
+			x = p.children[c];
+		}
+		for (Leaf l = (Leaf) x; left > 0; l = l.next, i = 0)
+		{
+			int end = Math.min(l.n, i + left);
+			for (int e = i; e < end; e++)
+				v.visit(l.keys[e], l.infos[e]);
+			left -= end - i;
+		}
+	}
+
+	/**
+	 * public void insertAt(int i, int k, String s)
+	 *
+	 * Inserts (k, s) as the ith item, splitting full nodes on the way back up.
+	 * @pre: 0 <= i <= size
+	 */
+	public void insertAt(int i, int k, String s)
+	{
+		Node split = insert(root, i, k, s);
+		size++;
+		if (split != null) // the root split: grow a level.
+		{
+			Inner r = new Inner();
+			r.n = 2;
+			r.children[0] = root;
+			r.counts[0] = root.count();
+			r.children[1] = split;
+			r.counts[1] = split.count();
+			root = r;
+		}
+	}
+
+	/**
+	 * public void deleteAt(int i)
+	 *
+	 * Deletes the ith item, fixing underfull nodes on the way back up.
+	 * @pre: 0 <= i < size
+	 */
+	public void deleteAt(int i)
+	{
+		delete(root, i);
+		size--;
+		if (root instanceof Inner && root.n == 1) // shrink a level.
+			root = ((Inner) root).children[0];
+	}
+
+	/**
+	 * private Node insert(Node x, int i, int k, String s)
+	 *
+	 * Inserts (k, s) at position i of x's sub-tree.
+	 * Returns the new right sibling of x if x split, or null.
+	 */
+	private Node insert(Node x, int i, int k, String s)
+	{
+		if (x instanceof Leaf)
+		{
+			Leaf l = (Leaf) x;
+			if (l.n < CAPACITY)
+			{
+				l.insert(i, k, s);
+				return null;
+			}
+			Leaf r = l.split();
+			if (i <= l.n)
+				l.insert(i, k, s);
+			else
+				r.insert(i - l.n, k, s);
+			return r;
+		}
+		Inner p = (Inner) x;
+		int c = 0;
+		while (c < p.n - 1 && i > p.counts[c]) // i == counts[c] appends to child c.
+			i -= p.counts[c++];
+		Node child = p.children[c];
+		Node split = insert(child, i, k, s);
+		if (split == null)
+		{
+			p.counts[c]++;
+			return null;
+		}
+		p.counts[c] = child.count();
+		if (p.n < CAPACITY)
+		{
+			p.insert(c + 1, split, split.count());
+			return null;
+		}
+		Inner q = p.split();
+		if (c + 1 <= p.n)
+			p.insert(c + 1, split, split.count());
+		else
+			q.insert(c + 1 - p.n, split, split.count());
+		return q;
+	}
+
+	/**
+	 * private void delete(Node x, int i)
+	 *
+	 * Deletes position i of x's sub-tree. The caller fixes x if it falls under MIN.
+	 */
+	private void delete(Node x, int i)
+	{
+		if (x instanceof Leaf)
+		{
+			((Leaf) x).remove(i);
+			return;
+		}
+		Inner p = (Inner) x;
+		int c = 0;
+		while (i >= p.counts[c])
+			i -= p.counts[c++];
+		Node child = p.children[c];
+		delete(child, i);
+		p.counts[c]--;
+		if (child.n < MIN && p.n > 1)
+			fix(p, c);
+	}
+
+	/**
+	 * private void fix(Inner p, int c)
+	 *
+	 * Refills p's underfull child c: borrows one entry from a sibling that can
+	 * spare it, or else merges the child with that sibling.
+	 */
+	private void fix(Inner p, int c)
+	{
+		int left = (c > 0) ? c - 1 : c; // merge or borrow between children left and left + 1.
+		Node a = p.children[left];
+		Node b = p.children[left + 1];
+		Node sibling = (left == c) ? b : a;
+		if (sibling.n > MIN)
+		{
+			if (sibling == a) // move a's last entry to the front of b.
+				moveLastToFront(a, b);
+			else // move b's first entry to the end of a.
+				moveFirstToBack(a, b);
+			p.counts[left] = a.count();
+			p.counts[left + 1] = b.count();
+			return;
+		}
+		if (a instanceof Leaf)
+		{
+			Leaf la = (Leaf) a;
+			Leaf lb = (Leaf) b;
+			System.arraycopy(lb.keys, 0, la.keys, la.n, lb.n);
+			System.arraycopy(lb.infos, 0, la.infos, la.n, lb.n);
+			la.n += lb.n;
+			la.next = lb.next;
+			if (lb.next != null)
+				lb.next.prev = la;
+		}
+		else
+		{
+			Inner ia = (Inner) a;
+			Inner ib = (Inner) b;
+			System.arraycopy(ib.children, 0, ia.children, ia.n, ib.n);
+			System.arraycopy(ib.counts, 0, ia.counts, ia.n, ib.n);
+			ia.n += ib.n;
+		}
+		p.counts[left] += p.counts[left + 1];
+		p.remove(left + 1);
+	}
+
+	private static void moveLastToFront(Node a, Node b)
+	{
+		if (a instanceof Leaf)
+		{
+			Leaf la = (Leaf) a;
+			Leaf lb = (Leaf) b;
+			lb.insert(0, la.keys[la.n - 1], la.infos[la.n - 1]);
+			la.remove(la.n - 1);
+		}
+		else
+		{
+			Inner ia = (Inner) a;
+			((Inner) b).insert(0, ia.children[ia.n - 1], ia.counts[ia.n - 1]);
+			ia.remove(ia.n - 1);
+		}
+	}
+
+	private static void moveFirstToBack(Node a, Node b)
+	{
+		if (a instanceof Leaf)
+		{
+			Leaf lb = (Leaf) b;
+			((Leaf) a).insert(a.n, lb.keys[0], lb.infos[0]);
+			lb.remove(0);
+		}
+		else
+		{
+			Inner ib = (Inner) b;
+			((Inner) a).insert(a.n, ib.children[0], ib.counts[0]);
+			ib.remove(0);
+		}
+	}
+
+  /**
+   * public int[] keysToArray()
+   *
+   * Returns an array which contains all keys in the tree, in order, read leaf by leaf.
+   */
+	public int[] keysToArray()
+	{
+		int[] arr = new int[size];
+		int j = 0;
+		for (Leaf l = first; l != null; l = l.next)
+		{
+			System.arraycopy(l.keys, 0, arr, j, l.n);
+			j += l.n;
+		}
+		return arr;
+	}
+
+  /**
+   * public String[] infoToArray()
+   *
+   * Returns an array which contains all info in the tree, in order, read leaf by leaf.
+   */
+	public String[] infoToArray()
+	{
+		String[] arr = new String[size];
+		int j = 0;
+		for (Leaf l = first; l != null; l = l.next)
+		{
+			System.arraycopy(l.infos, 0, arr, j, l.n);
+			j += l.n;
+		}
+		return arr;
+	}
+
+	/**
+	 * private abstract static class Node
+	 *
+	 * n is the number of entries: items in a leaf, children in an inner node.
+	 */
+	private abstract static class Node
+	{
+		int n;
+
+		abstract int count(); // items in the sub-tree.
+	}
+
+	private static final class Leaf extends Node
+	{
+		final int[] keys = new int[CAPACITY];
+		final String[] infos = new String[CAPACITY];
+		Leaf prev;
+		Leaf next;
+
+		int count()
+		{
+			return n;
+		}
+
+		void insert(int i, int k, String s)
+		{
+			System.arraycopy(keys, i, keys, i + 1, n - i);
+			System.arraycopy(infos, i, infos, i + 1, n - i);
+			keys[i] = k;
+			infos[i] = s;
+			n++;
+		}
+
+		void remove(int i)
+		{
+			System.arraycopy(keys, i + 1, keys, i, n - i - 1);
+			System.arraycopy(infos, i + 1, infos, i, n - i - 1);
+			infos[--n] = null;
+		}
+
+		/**
+		 * Leaf split()
+		 *
+		 * Moves the upper half of this leaf to a new leaf linked after it, and returns it.
+		 */
+		Leaf split()
+		{
+			Leaf r = new Leaf();
+			int half = n / 2;
+			r.n = n - half;
+			System.arraycopy(keys, half, r.keys, 0, r.n);
+			System.arraycopy(infos, half, r.infos, 0, r.n);
+			Arrays.fill(infos, half, n, null);
+			n = half;
+			r.next = next;
+			r.prev = this;
+			if (next != null)
+				next.prev = r;
+			next = r;
+			return r;
+		}
+	}
+
+	private static final class Inner extends Node
+	{
+		final Node[] children = new Node[CAPACITY];
+		final int[] counts = new int[CAPACITY];
+
+		int count()
+		{
+			int sum = 0;
+			for (int c = 0; c < n; c++)
+				sum += counts[c];
+			return sum;
+		}
+
+		void insert(int c, Node child, int count)
+		{
+			System.arraycopy(children, c, children, c + 1, n - c);
+			System.arraycopy(counts, c, counts, c + 1, n - c);
+			children[c] = child;
+			counts[c] = count;
+			n++;
+		}
+
+		void remove(int c)
+		{
+			System.arraycopy(children, c + 1, children, c, n - c - 1);
+			System.arraycopy(counts, c + 1, counts, c, n - c - 1);
+			children[--n] = null;
+		}
+
+		/**
+		 * Inner split()
+		 *
+		 * Moves the upper half of this node's children to a new node, and returns it.
+		 */
+		Inner split()
+		{
+			Inner q = new Inner();
+			int half = n / 2;
+			q.n = n - half;
+			System.arraycopy(children, half, q.children, 0, q.n);
+			System.arraycopy(counts, half, q.counts, 0, q.n);
+			Arrays.fill(children, half, n, null);
+			n = half;
+			return q;
+		}
+	}
+}
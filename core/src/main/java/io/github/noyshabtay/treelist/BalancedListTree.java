@@ -0,0 +1,371 @@
+package io.github.noyshabtay.treelist;
+
+/**
+ *
+ * BalancedListTree
+ *
+ * A positional binary search tree (an order-statistics tree) holding a list
+ * of (key, info) items, with the balancing scheme left to a subclass:
+ * WAVLTree keeps ranks, RedBlackTree keeps colours.
+ *
+ * This class does the parts every scheme shares. It walks down to a position,
+ * attaches or splices out one node, and rotates. Sizes are updated on the way
+ * down, because the walk already knows the size will change by one. So once
+ * the subclass's fixInsert or fixDelete stops rebalancing, nothing is left to
+ * do above it. An AVLTree, by contrast, finishes every update with a walk
+ * to the root.
+ *
+ * listInsert and listDelete return the number of rotations they did, as
+ * AVLTree's do (a double rotation counts 2).
+ *
+ */
+abstract class BalancedListTree implements IListBackend {
+
+	Node root = null;
+	private long rotations = 0;
+
+   /**
+    * public int size()
+    *
+    * Returns the number of items in the tree.
+    */
+	public int size()
+	{
+		return sizeOf(root);
+	}
+
+	/**
+	 * public long rotations()
+	 *
+	 * Returns the number of rotations done since the tree was created.
+	 */
+	public long rotations()
+	{
+		return rotations;
+	}
+
+	public int keyAt(int i)
+	{
+		return select(i + 1).key;
+	}
+
+	public String infoAt(int i)
+	{
+		return select(i + 1).info;
+	}
+
+	public void insertAt(int i, int k, String s)
+	{
+		listInsert(i + 1, k, s);
+	}
+
+	public void deleteAt(int i)
+	{
+		listDelete(i + 1);
+	}
+
+	/**
+	 * public void forEach(int i, int j, ItemVisitor v)
+	 *
+	 * Visits items i..j-1 (0-based) in order: one select, then successor steps.
+	 */
+	public void forEach(int i, int j, ItemVisitor v)
+	{
+		if (i >= j)
+			return;
+		Node x = select(i + 1);
+		for (int n = j - i; n > 0; n--)
+		{
+			v.visit(x.key, x.info);
+			x = successor(x);
+		}
+	}
+
+   /**
+    * public int listInsert(int i, int k, String s)
+    *
+    * Inserts an item with key k and info s as the item ranked i-th in the tree.
+    * returns the number of rotations done.
+    * @pre: i > 0, i <= tree.size + 1
+    */
+	public int listInsert(int i, int k, String s)
+	{
+		long before = rotations;
+		Node x = new Node(k, s);
+		if (root == null)
+			root = x;
+		else
+		{
+			Node p = root;
+			while (true) // every node on the way gains x in its sub-tree.
+			{
+				p.size++;
+				int rank = sizeOf(p.left) + 1;
+				if (i <= rank)
+				{
+					if (p.left == null)
+					{
+						p.left = x;
+						break;
+					}
+					p = p.left;
+				}
+				else
+				{
+					i -= rank;
+					if (p.right == null)
+					{
+						p.right = x;
+						break;
+					}
+					p = p.right;
+				}
+			}
+			x.parent = p;
+		}
+		fixInsert(x);
+		return (int) (rotations - before);
+	}
+
+   /**
+    * public int listDelete(int i)
+    *
+    * Deletes the item ranked i-th in the tree.
+    * A node with two children takes its successor's item, and the successor's node is removed instead.
+    * returns the number of rotations done.
+    * @pre: i > 0, i <= tree.size
+    */
+	public int listDelete(int i)
+	{
+		long before = rotations;
+		Node z = root;
+		while (true) // every node on the way loses one item from its sub-tree.
+		{
+			z.size--;
+			int rank = sizeOf(z.left) + 1;
+			if (i == rank)
+				break;
+			if (i < rank)
+				z = z.left;
+			else
+			{
+				i -= rank;
+				z = z.right;
+			}
+		}
+		if (z.left != null && z.right != null)
+		{
+			Node y = z.right;
+			while (y.left != null)
+			{
+				y.size--;
+				y = y.left;
+			}
+			z.key = y.key;
+			z.info = y.info;
+			z = y;
+		}
+		Node child = (z.left != null) ? z.left : z.right;
+		Node p = z.parent;
+		if (child != null)
+			child.parent = p;
+		if (p == null)
+			root = child;
+		else if (p.left == z)
+			p.left = child;
+		else
+			p.right = child;
+		fixDelete(z, child, p);
+		return (int) (rotations - before);
+	}
+
+	/**
+	 * abstract void fixInsert(Node x)
+	 *
+	 * Restores the balance after x was attached as a leaf (or as the root).
+	 */
+	abstract void fixInsert(Node x);
+
+	/**
+	 * abstract void fixDelete(Node z, Node x, Node p)
+	 *
+	 * Restores the balance after the node z, with at most one child, was spliced out:
+	 * x (null if z was a leaf) took its place as a child of p (null if x is the root).
+	 */
+	abstract void fixDelete(Node z, Node x, Node p);
+
+	/**
+	 * abstract void initBuilt(Node x, int height, int depth, int treeHeight)
+	 *
+	 * Sets up the balance fields of a node of a tree made by build,
+	 * given x's height, its depth and the height of the whole tree.
+	 */
+	abstract void initBuilt(Node x, int height, int depth, int treeHeight);
+
+	/**
+	 * static <T extends BalancedListTree> T build(T t, int[] keys, String[] infos)
+	 *
+	 * Fills the empty tree t with a balanced tree whose jth item is (keys[j], infos[j]),
+	 * in O(n) time, and returns it.
+	 * Throws IllegalArgumentException if the arrays differ in length.
+	 */
+	static <T extends BalancedListTree> T build(T t, int[] keys, String[] infos)
+	{
+		if (keys.length != infos.length)
+			throw new IllegalArgumentException("keys and infos differ in length");
+		int treeHeight = 31 - Integer.numberOfLeadingZeros(keys.length); // of a midpoint tree over n items.
+		t.root = build(t, keys, infos, 0, keys.length - 1, 0, treeHeight);
+		return t;
+	}
+
+	private static Node build(BalancedListTree t, int[] keys, String[] infos, int lo, int hi, int depth, int treeHeight)
+	{
+		if (lo > hi)
+			return null;
+		int mid = (lo + hi) >>> 1;
+		Node x = new Node(keys[mid], infos[mid]);
+		x.left = build(t, keys, infos, lo, mid - 1, depth + 1, treeHeight);
+		x.right = build(t, keys, infos, mid + 1, hi, depth + 1, treeHeight);
+		int height = 0;
+		if (x.left != null)
+		{
+			x.left.parent = x;
+			height = x.left.height + 1;
+		}
+		if (x.right != null)
+		{
+			x.right.parent = x;
+			height = Math.max(height, x.right.height + 1);
+		}
+		x.height = height;
+		x.size = hi - lo + 1;
+		t.initBuilt(x, height, depth, treeHeight);
+		return x;
+	}
+
+	/**
+	 * Node select(int i)
+	 *
+	 * Returns the node ranked i.
+	 * @pre: i > 0, i <= tree.size
+	 */
+	Node select(int i)
+	{
+		Node x = root;
+		while (true)
+		{
+			int rank = sizeOf(x.left) + 1;
+			if (i == rank)
+				return x;
+			if (i < rank)
+				x = x.left;
+			else
+			{
+				i -= rank;
+				x = x.right;
+			}
+		}
+	}
+
+	static Node successor(Node x)
+	{
+		if (x.right != null)
+		{
+			x = x.right;
+			while (x.left != null)
+				x = x.left;
+			return x;
+		}
+		Node y = x.parent;
+		while (y != null && x == y.right)
+		{
+			x = y;
+			y = y.parent;
+		}
+		return y;
+	}
+
+	/**
+	 * void rotateLeft(Node x)
+	 *
+	 * Left rotates the sub-tree rooted at x; the sizes of x and its right child are fixed.
+	 */
+	void rotateLeft(Node x)
+	{
+		Node y = x.right;
+		x.right = y.left;
+		if (y.left != null)
+			y.left.parent = x;
+		replace(x, y);
+		y.left = x;
+		x.parent = y;
+		y.size = x.size;
+		x.size = sizeOf(x.left) + sizeOf(x.right) + 1;
+		rotations++;
+	}
+
+	/**
+	 * void rotateRight(Node x)
+	 *
+	 * Right rotates the sub-tree rooted at x; the sizes of x and its left child are fixed.
+	 */
+	void rotateRight(Node x)
+	{
+		Node y = x.left;
+		x.left = y.right;
+		if (y.right != null)
+			y.right.parent = x;
+		replace(x, y);
+		y.right = x;
+		x.parent = y;
+		y.size = x.size;
+		x.size = sizeOf(x.left) + sizeOf(x.right) + 1;
+		rotations++;
+	}
+
+	/**
+	 * private void replace(Node x, Node y)
+	 *
+	 * Hangs y where x hangs, under x's parent or as the root.
+	 */
+	private void replace(Node x, Node y)
+	{
+		Node p = x.parent;
+		y.parent = p;
+		if (p == null)
+			root = y;
+		else if (p.left == x)
+			p.left = y;
+		else
+			p.right = y;
+	}
+
+	static int sizeOf(Node x)
+	{
+		return (x == null) ? 0 : x.size;
+	}
+
+	/**
+	 * static final class Node
+	 *
+	 * A tree node. rank is used by WAVLTree (the height only while building),
+	 * red by RedBlackTree.
+	 */
+	static final class Node {
+		int key;
+		String info;
+		Node left;
+		Node right;
+		Node parent;
+		int size = 1;
+		int height; // set by build only.
+		byte rank;
+		boolean red;
+
+		Node(int key, String info)
+		{
+			this.key = key;
+			this.info = info;
+		}
+	}
+}
@@ -0,0 +1,339 @@
+package io.github.noyshabtay.treelist;
+
+import java.util.concurrent.locks.StampedLock;
+
+import io.github.noyshabtay.treelist.AVLTree.AVLNode;
+import io.github.noyshabtay.treelist.AVLTree.IAVLNode;
+
+/**
+ *
+ * ConcurrentAVLTree
+ *
+ * A thread-safe AVL Tree with the API of AVLTree.
+ *
+ * Writers are serialized by the write lock of a StampedLock.
+ * Point readers (search, treeSelect, min, max) first run optimistically:
+ * they descend without locking, bounded to MAX_STEPS nodes, and keep the result
+ * only if no writer got the lock in the meantime. A descent that trips over
+ * a half-done rotation (or fails validation) is retried under the read lock.
+ * Readers never write tree state; in particular they do not move the finger
+ * that treeSelect keeps in AVLTree.
+ *
+ */
+public class ConcurrentAVLTree {
+
+	/**
+	 * More than the height of any AVL tree with 2^31 nodes;
+	 * a longer optimistic walk means it went around a torn cycle.
+	 */
+	private static final int MAX_STEPS = 64;
+
+	private final AVLTree tree = new AVLTree();
+	private final StampedLock lock = new StampedLock();
+
+  /**
+   * public boolean empty()
+   *
+   * returns true if and only if the tree is empty
+   */
+	public boolean empty()
+	{
+		return size() == 0;
+	}
+
+   /**
+    * public int size()
+    *
+    * Returns the number of nodes in the tree.
+    */
+	public int size()
+	{
+		long stamp = lock.tryOptimisticRead();
+		int n = tree.size();
+		if (lock.validate(stamp))
+			return n;
+		stamp = lock.readLock();
+		try
+		{
+			return tree.size();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+ /**
+   * public String search(int k)
+   *
+   * returns the info of an item with key k if it exists in the tree
+   * otherwise, returns null
+   */
+	public String search(int k)
+	{
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0)
+		{
+			try
+			{
+				IAVLNode node = searchNode(k);
+				String value = (node == null) ? null : node.getValue();
+				if (lock.validate(stamp))
+					return value;
+			}
+			catch (RuntimeException e) // a torn read; fall back to the read lock.
+			{
+			}
+		}
+		stamp = lock.readLock();
+		try
+		{
+			return tree.search(k);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * public IAVLNode treeSelect(int k)
+	 *
+	 * Returns the node with the k-th key in the tree,
+	 * or null if k is not a rank that exists in the tree.
+	 * The node's key and value may be read freely; its links are only
+	 * meaningful while no writer runs.
+	 */
+	public IAVLNode treeSelect(int k)
+	{
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0)
+		{
+			try
+			{
+				IAVLNode node = selectNode(k);
+				if (lock.validate(stamp))
+					return node;
+			}
+			catch (RuntimeException e) // a torn read; fall back to the read lock.
+			{
+			}
+		}
+		stamp = lock.readLock();
+		try
+		{
+			if (k < 1 || k > tree.size())
+				return null;
+			return AVLTree.select(tree.getRoot(), k);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+   /**
+    * public String min()
+    *
+    * Returns the info of the item with the smallest key in the tree,
+    * or null if the tree is empty
+    */
+	public String min()
+	{
+		long stamp = lock.tryOptimisticRead();
+		String value = tree.min();
+		if (lock.validate(stamp))
+			return value;
+		stamp = lock.readLock();
+		try
+		{
+			return tree.min();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+   /**
+    * public String max()
+    *
+    * Returns the info of the item with the largest key in the tree,
+    * or null if the tree is empty
+    */
+	public String max()
+	{
+		long stamp = lock.tryOptimisticRead();
+		String value = tree.max();
+		if (lock.validate(stamp))
+			return value;
+		stamp = lock.readLock();
+		try
+		{
+			return tree.max();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+  /**
+   * public int[] keysToArray()
+   *
+   * Returns a sorted array which contains all keys in the tree.
+   * Runs under the read lock: a full walk would rarely survive validation.
+   */
+	public int[] keysToArray()
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.keysToArray();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+  /**
+   * public String[] infoToArray()
+   *
+   * Returns an array which contains all info in the tree, sorted by their respective keys.
+   * Runs under the read lock.
+   */
+	public String[] infoToArray()
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.infoToArray();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+  /**
+   * public int insert(int k, String i)
+   *
+   * inserts an item with key k and info i, see AVLTree.insert.
+   */
+	public int insert(int k, String i)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.insert(k, i);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+  /**
+   * public int delete(int k)
+   *
+   * deletes the item with key k, see AVLTree.delete.
+   */
+	public int delete(int k)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.delete(k);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+   /**
+    * public int listInsert(int i, int k, String s)
+    *
+    * Inserts an item as the i-th ranked item, see AVLTree.listInsert.
+    */
+	public int listInsert(int i, int k, String s)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.listInsert(i, k, s);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+   /**
+    * public int listDelete(int k)
+    *
+    * Deletes the item in the k-th position, see AVLTree.listDelete.
+    */
+	public int listDelete(int k)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.listDelete(k);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * private IAVLNode searchNode(int k)
+	 *
+	 * Optimistic BST walk, bounded to MAX_STEPS nodes.
+	 * Throws IllegalStateException when the bound is hit.
+	 */
+	private IAVLNode searchNode(int k)
+	{
+		IAVLNode node = tree.getRoot();
+		for (int steps = 0; node != null; steps++)
+		{
+			if (steps == MAX_STEPS)
+				throw new IllegalStateException("torn read");
+			int key = node.getKey();
+			if (key == k)
+				return node;
+			node = (key < k) ? node.getRight() : node.getLeft();
+		}
+		return null;
+	}
+
+	/**
+	 * private IAVLNode selectNode(int k)
+	 *
+	 * Optimistic order-statistics walk, bounded to MAX_STEPS nodes.
+	 * Throws IllegalStateException when the bound is hit.
+	 */
+	private IAVLNode selectNode(int k)
+	{
+		if (k < 1 || k > tree.size())
+			return null;
+		IAVLNode node = tree.getRoot();
+		for (int steps = 0; steps < MAX_STEPS; steps++)
+		{
+			IAVLNode l = node.getLeft();
+			int rank = (l == null) ? 1 : ((AVLNode) l).getSize() + 1;
+			if (rank == k)
+				return node;
+			if (k < rank)
+				node = l;
+			else
+			{
+				k -= rank;
+				node = node.getRight();
+			}
+		}
+		throw new IllegalStateException("torn read");
+	}
+}
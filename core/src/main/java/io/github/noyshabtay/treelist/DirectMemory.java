@@ -0,0 +1,67 @@
+package io.github.noyshabtay.treelist;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ *
+ * DirectMemory
+ *
+ * Frees direct and mapped ByteBuffers right away rather than when the GC
+ * gets around to collecting them. JDK 17 has no final API for this: the
+ * Foreign Memory API is still incubating. So this class goes through
+ * sun.misc.Unsafe.invokeCleaner, which is looked up reflectively.
+ * If that lookup fails, free does nothing and the memory is reclaimed
+ * with the buffer object.
+ *
+ */
+final class DirectMemory {
+
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static
+	{
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try
+		{
+			Class<?> c = Class.forName("sun.misc.Unsafe");
+			Field f = c.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			unsafe = f.get(null);
+			invokeCleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+		}
+		catch (ReflectiveOperationException | RuntimeException e) // no Unsafe; leave it to the GC.
+		{
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	private DirectMemory()
+	{
+	}
+
+	/**
+	 * static void free(ByteBuffer buffer)
+	 *
+	 * Releases the memory behind a direct or mapped buffer.
+	 * The buffer must not be used afterwards.
+	 */
+	static void free(ByteBuffer buffer)
+	{
+		if (buffer == null || !buffer.isDirect() || INVOKE_CLEANER == null)
+			return;
+		try
+		{
+			INVOKE_CLEANER.invoke(UNSAFE, buffer);
+		}
+		catch (ReflectiveOperationException | RuntimeException e) // e.g. a slice or duplicate; the GC will free it.
+		{
+		}
+	}
+}
@@ -0,0 +1,349 @@
+package io.github.noyshabtay.treelist;
+
+import java.util.Arrays;
+
+/**
+ *
+ * HotKeyCache
+ *
+ * A bounded key -> node cache in front of AVLTree.search (see AVLTree.setCache).
+ * A hit answers from the cached node in O(1), skipping the descent; a miss
+ * descends as usual and caches the node it finds.
+ *
+ * Entries live in parallel arrays indexed by slot. An open-addressing table
+ * over int keys, with linear probing and backward-shift removal, maps a key
+ * to its slot. Keys are never boxed.
+ *
+ * When the cache is full, the eviction Policy picks the victim:
+ * LRU keeps the slots in a recency list, and CLOCK keeps a reference bit
+ * per slot plus a sweeping hand, so a hit only sets a bit.
+ *
+ * Rotations and the successor relinking in delete move nodes but never
+ * change which node holds a key. The tree therefore only needs to
+ * invalidate keys it removes (delete, listDelete, deleteAll), and the whole
+ * cache when it hands its nodes to another tree (split, join, listConcat).
+ * A cache serves one tree and, like AVLTree, is not thread-safe.
+ *
+ */
+public final class HotKeyCache {
+
+	/**
+	 * The eviction policy of a full cache.
+	 */
+	public enum Policy {
+		/** Evicts the least recently used key. */
+		LRU,
+		/** Evicts the first key the hand finds unreferenced since its last sweep. */
+		CLOCK
+	}
+
+	private static final int NONE = -1;
+
+	private final Policy policy;
+	private final int capacity;
+
+	// per slot.
+	private final int[] keys;
+	private final AVLTree.IAVLNode[] nodes; // null for a free slot.
+	private final int[] prev; // LRU: towards the most recent, NONE at the head.
+	private final int[] next; // LRU: towards the least recent, NONE at the tail.
+	private final boolean[] referenced; // CLOCK.
+
+	private final int[] table; // slot + 1 per bucket, 0 when empty.
+	private final int mask;
+
+	private final int[] free; // stack of free slots.
+	private int freeTop;
+	private int head = NONE; // LRU: most recently used.
+	private int tail = NONE; // LRU: least recently used.
+	private int hand = 0; // CLOCK.
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+	private long invalidations = 0;
+
+	/**
+	 * public HotKeyCache(int capacity, Policy policy)
+	 *
+	 * Creates an empty cache holding up to capacity keys.
+	 * Throws IllegalArgumentException if capacity < 1.
+	 */
+	public HotKeyCache(int capacity, Policy policy)
+	{
+		if (capacity < 1 || capacity > 1 << 28)
+			throw new IllegalArgumentException("capacity out of range: " + capacity);
+		this.policy = policy;
+		this.capacity = capacity;
+		keys = new int[capacity];
+		nodes = new AVLTree.IAVLNode[capacity];
+		prev = (policy == Policy.LRU) ? new int[capacity] : null;
+		next = (policy == Policy.LRU) ? new int[capacity] : null;
+		referenced = (policy == Policy.CLOCK) ? new boolean[capacity] : null;
+		table = new int[Integer.highestOneBit(capacity) << 2]; // load factor <= 1/2.
+		mask = table.length - 1;
+		free = new int[capacity];
+		resetFree();
+	}
+
+	public Policy policy()
+	{
+		return policy;
+	}
+
+	public int capacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * public int size()
+	 *
+	 * Returns the number of cached keys.
+	 */
+	public int size()
+	{
+		return capacity - freeTop;
+	}
+
+	public long hits()
+	{
+		return hits;
+	}
+
+	public long misses()
+	{
+		return misses;
+	}
+
+	/**
+	 * public long evictions()
+	 *
+	 * Returns how many keys were dropped to make room for another.
+	 */
+	public long evictions()
+	{
+		return evictions;
+	}
+
+	/**
+	 * public long invalidations()
+	 *
+	 * Returns how many cached keys were dropped because the tree removed them.
+	 */
+	public long invalidations()
+	{
+		return invalidations;
+	}
+
+	/**
+	 * public double hitRate()
+	 *
+	 * Returns hits / (hits + misses), or 0 before the first lookup.
+	 */
+	public double hitRate()
+	{
+		long total = hits + misses;
+		return (total == 0) ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * public void resetStats()
+	 *
+	 * Zeroes the hit, miss, eviction and invalidation counters; the entries stay.
+	 */
+	public void resetStats()
+	{
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+		invalidations = 0;
+	}
+
+	/**
+	 * AVLTree.IAVLNode get(int k)
+	 *
+	 * Returns the cached node with key k, marking it used, or null on a miss.
+	 */
+	AVLTree.IAVLNode get(int k)
+	{
+		int b = find(k);
+		if (b == NONE)
+		{
+			misses++;
+			return null;
+		}
+		hits++;
+		int s = table[b] - 1;
+		if (policy == Policy.LRU)
+		{
+			if (s != head)
+			{
+				unlink(s);
+				pushFront(s);
+			}
+		}
+		else
+			referenced[s] = true;
+		return nodes[s];
+	}
+
+	/**
+	 * void put(int k, AVLTree.IAVLNode node)
+	 *
+	 * Caches node under k, evicting a key if the cache is full.
+	 * @pre: k is not cached (the caller just missed it).
+	 */
+	void put(int k, AVLTree.IAVLNode node)
+	{
+		if (freeTop == 0)
+		{
+			evictions++;
+			drop(find(keys[victim()]));
+		}
+		int s = free[--freeTop];
+		keys[s] = k;
+		nodes[s] = node;
+		if (policy == Policy.LRU)
+			pushFront(s);
+		else
+			referenced[s] = true;
+		int b = hash(k) & mask;
+		while (table[b] != 0)
+			b = (b + 1) & mask;
+		table[b] = s + 1;
+	}
+
+	/**
+	 * void remove(int k)
+	 *
+	 * Drops k from the cache, if it is there.
+	 */
+	void remove(int k)
+	{
+		int b = find(k);
+		if (b != NONE)
+		{
+			invalidations++;
+			drop(b);
+		}
+	}
+
+	/**
+	 * void clear()
+	 *
+	 * Drops every key; the counters stay.
+	 */
+	void clear()
+	{
+		if (freeTop == capacity)
+			return;
+		invalidations += size();
+		Arrays.fill(table, 0);
+		Arrays.fill(nodes, null);
+		head = NONE;
+		tail = NONE;
+		hand = 0;
+		resetFree();
+	}
+
+	private void resetFree()
+	{
+		for (int s = 0; s < capacity; s++)
+			free[s] = capacity - 1 - s; // hand out slot 0 first.
+		freeTop = capacity;
+	}
+
+	/**
+	 * private int victim()
+	 *
+	 * Returns the slot to evict from a full cache.
+	 */
+	private int victim()
+	{
+		if (policy == Policy.LRU)
+			return tail;
+		while (referenced[hand]) // a second chance: clear the bit and move on.
+		{
+			referenced[hand] = false;
+			hand = (hand + 1 == capacity) ? 0 : hand + 1;
+		}
+		int s = hand;
+		hand = (hand + 1 == capacity) ? 0 : hand + 1;
+		return s;
+	}
+
+	/**
+	 * private int find(int k)
+	 *
+	 * Returns the bucket holding k, or NONE.
+	 */
+	private int find(int k)
+	{
+		for (int b = hash(k) & mask; table[b] != 0; b = (b + 1) & mask)
+		{
+			if (keys[table[b] - 1] == k)
+				return b;
+		}
+		return NONE;
+	}
+
+	/**
+	 * private void drop(int b)
+	 *
+	 * Frees the slot in bucket b and closes the gap in its probe run,
+	 * moving back each later entry that would no longer be reachable.
+	 */
+	private void drop(int b)
+	{
+		int s = table[b] - 1;
+		nodes[s] = null;
+		if (policy == Policy.LRU)
+			unlink(s);
+		else
+			referenced[s] = false;
+		free[freeTop++] = s;
+		int gap = b;
+		for (int j = (b + 1) & mask; table[j] != 0; j = (j + 1) & mask)
+		{
+			int home = hash(keys[table[j] - 1]) & mask;
+			// the entry at j may stay unless its home is cyclically outside (gap, j].
+			boolean stays = (gap <= j) ? (gap < home && home <= j) : (gap < home || home <= j);
+			if (!stays)
+			{
+				table[gap] = table[j];
+				gap = j;
+			}
+		}
+		table[gap] = 0;
+	}
+
+	private void pushFront(int s)
+	{
+		prev[s] = NONE;
+		next[s] = head;
+		if (head != NONE)
+			prev[head] = s;
+		head = s;
+		if (tail == NONE)
+			tail = s;
+	}
+
+	private void unlink(int s)
+	{
+		if (prev[s] != NONE)
+			next[prev[s]] = next[s];
+		else
+			head = next[s];
+		if (next[s] != NONE)
+			prev[next[s]] = prev[s];
+		else
+			tail = prev[s];
+	}
+
+	private static int hash(int k)
+	{
+		int h = k * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,18 @@
+package io.github.noyshabtay.treelist;
+
+/**
+ *
+ * IListBackend
+ *
+ * The positional operations a TreeList needs from the structure under it
+ * (see TreeList.Backend). Positions are 0-based, as in TreeList.
+ *
+ */
+public interface IListBackend {
+	public int size(); // returns the number of items
+	public int keyAt(int i); // returns the key of the ith item, @pre: 0 <= i < size
+	public String infoAt(int i); // returns the info of the ith item, @pre: 0 <= i < size
+	public void insertAt(int i, int k, String s); // inserts (k, s) as the ith item, @pre: 0 <= i <= size
+	public void deleteAt(int i); // deletes the ith item, @pre: 0 <= i < size
+	public void forEach(int i, int j, ItemVisitor v); // visits items i..j-1 in order, @pre: 0 <= i <= j <= size
+}
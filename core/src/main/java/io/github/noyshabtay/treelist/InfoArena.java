@@ -0,0 +1,371 @@
+package io.github.noyshabtay.treelist;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ *
+ * InfoArena
+ *
+ * Compact on-heap storage for info strings. An AVLTree built over an arena
+ * keeps each node's info in the arena's byte[] pages, not as a String object,
+ * and decodes it only when getValue is called. The allocation-free accessors
+ * (getValueChars, appendValueTo, AVLTree.searchInto) skip the String
+ * entirely.
+ *
+ * An entry is a varint header (length << 1 | utf8) followed by the payload.
+ * The payload is Latin-1, one byte per char, when every char fits in a byte,
+ * and UTF-8 otherwise. An entry is addressed by an int reference,
+ * page << PAGE_SHIFT | offset, and -1 stands for null.
+ *
+ * With dedup on, identical payloads are stored once and shared. A hash
+ * dictionary over the arena bytes finds them.
+ *
+ * The arena is append-only: the info of deleted nodes is not reclaimed,
+ * because with dedup it may still be shared. It holds up to 2 GiB of entries.
+ * An arena may back several trees, which lets join and split move nodes
+ * between them freely. It is not thread-safe.
+ *
+ */
+public final class InfoArena {
+
+	static final int NULL = -1;
+
+	private static final int PAGE_SHIFT = 20;
+	private static final int PAGE_BYTES = 1 << PAGE_SHIFT;
+	private static final int MAX_PAGES = 1 << (31 - PAGE_SHIFT);
+
+	private final boolean dedup;
+	private byte[][] pages = new byte[4][];
+	private int pageCount = 0;
+	private int position = PAGE_BYTES; // write offset in the last page; forces a first page.
+	private long storedBytes = 0;
+	private long sharedCount = 0;
+
+	// the dedup dictionary: open addressing over entry refs, with their hashes alongside.
+	private int[] table;
+	private int[] hashes;
+	private int entries = 0;
+
+	private byte[] scratch = new byte[64];
+
+	public InfoArena()
+	{
+		this(false);
+	}
+
+	/**
+	 * public InfoArena(boolean dedup)
+	 *
+	 * Creates an empty arena; with dedup, identical info strings are stored once.
+	 */
+	public InfoArena(boolean dedup)
+	{
+		this.dedup = dedup;
+		if (dedup)
+		{
+			table = new int[1024];
+			hashes = new int[1024];
+			Arrays.fill(table, NULL);
+		}
+	}
+
+	/**
+	 * public long storedBytes()
+	 *
+	 * Returns the bytes taken by entries, headers included.
+	 */
+	public long storedBytes()
+	{
+		return storedBytes;
+	}
+
+	/**
+	 * public long sharedCount()
+	 *
+	 * Returns how many adds were answered with an existing entry (always 0 without dedup).
+	 */
+	public long sharedCount()
+	{
+		return sharedCount;
+	}
+
+	/**
+	 * int add(String s)
+	 *
+	 * Stores s and returns its reference, or NULL for null.
+	 * Throws IllegalStateException when the arena is full.
+	 */
+	int add(String s)
+	{
+		if (s == null)
+			return NULL;
+		int n = s.length();
+		byte[] payload;
+		int length;
+		boolean utf8 = false;
+		if (scratch.length < n)
+			scratch = new byte[Math.max(n, scratch.length * 2)];
+		int c = 0;
+		for (; c < n; c++)
+		{
+			char ch = s.charAt(c);
+			if (ch > 0xFF)
+				break;
+			scratch[c] = (byte) ch;
+		}
+		if (c == n) // Latin-1.
+		{
+			payload = scratch;
+			length = n;
+		}
+		else
+		{
+			payload = s.getBytes(StandardCharsets.UTF_8);
+			length = payload.length;
+			utf8 = true;
+		}
+		if (length > Integer.MAX_VALUE >> 1)
+			throw new IllegalArgumentException("info too long for the arena");
+		int header = (length << 1) | (utf8 ? 1 : 0);
+		if (!dedup)
+			return append(header, payload, length);
+		int h = hash(header, payload, length);
+		int mask = table.length - 1;
+		for (int i = h & mask; ; i = (i + 1) & mask)
+		{
+			int ref = table[i];
+			if (ref == NULL)
+				break;
+			if (hashes[i] == h && matches(ref, header, payload, length))
+			{
+				sharedCount++;
+				return ref;
+			}
+		}
+		int ref = append(header, payload, length);
+		if (++entries * 2 > table.length)
+			rehash();
+		put(ref, h);
+		return ref;
+	}
+
+	/**
+	 * String get(int ref)
+	 *
+	 * Decodes the entry at ref into a new String, or returns null for NULL.
+	 */
+	String get(int ref)
+	{
+		if (ref == NULL)
+			return null;
+		byte[] page = pages[ref >>> PAGE_SHIFT];
+		int at = ref & (PAGE_BYTES - 1);
+		int header = readHeader(page, at);
+		return new String(page, at + headerLength(header), header >>> 1,
+				((header & 1) == 0) ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * CharSequence chars(int ref)
+	 *
+	 * Returns the entry at ref as a CharSequence, or null for NULL.
+	 * Latin-1 entries are returned as a view over the arena bytes; UTF-8 ones are decoded.
+	 */
+	CharSequence chars(int ref)
+	{
+		if (ref == NULL)
+			return null;
+		byte[] page = pages[ref >>> PAGE_SHIFT];
+		int at = ref & (PAGE_BYTES - 1);
+		int header = readHeader(page, at);
+		if ((header & 1) != 0)
+			return get(ref);
+		return new Latin1Chars(page, at + headerLength(header), header >>> 1);
+	}
+
+	/**
+	 * boolean appendTo(int ref, StringBuilder dst)
+	 *
+	 * Appends the entry at ref to dst without creating a String.
+	 * Returns false (appending nothing) for NULL.
+	 */
+	boolean appendTo(int ref, StringBuilder dst)
+	{
+		if (ref == NULL)
+			return false;
+		byte[] page = pages[ref >>> PAGE_SHIFT];
+		int at = ref & (PAGE_BYTES - 1);
+		int header = readHeader(page, at);
+		at += headerLength(header);
+		int end = at + (header >>> 1);
+		if ((header & 1) == 0)
+		{
+			while (at < end)
+				dst.append((char) (page[at++] & 0xFF));
+			return true;
+		}
+		while (at < end) // UTF-8, as written by String.getBytes: well-formed.
+		{
+			int b = page[at++] & 0xFF;
+			if (b < 0x80)
+				dst.append((char) b);
+			else if (b < 0xE0)
+				dst.append((char) (((b & 0x1F) << 6) | (page[at++] & 0x3F)));
+			else if (b < 0xF0)
+			{
+				dst.append((char) (((b & 0x0F) << 12) | ((page[at] & 0x3F) << 6) | (page[at + 1] & 0x3F)));
+				at += 2;
+			}
+			else
+			{
+				dst.appendCodePoint(((b & 0x07) << 18) | ((page[at] & 0x3F) << 12) | ((page[at + 1] & 0x3F) << 6) | (page[at + 2] & 0x3F));
+				at += 3;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * private int append(int header, byte[] payload, int length)
+	 *
+	 * Writes a new entry and returns its reference. An entry never spans pages;
+	 * one longer than a page gets a page of its own.
+	 */
+	private int append(int header, byte[] payload, int length)
+	{
+		int need = headerLength(header) + length;
+		if (pageCount == 0 || position + need > pages[pageCount - 1].length)
+		{
+			if (pageCount == MAX_PAGES)
+				throw new IllegalStateException("info arena is full");
+			if (pageCount == pages.length)
+				pages = Arrays.copyOf(pages, pageCount * 2);
+			pages[pageCount++] = new byte[Math.max(PAGE_BYTES, need)];
+			position = 0;
+		}
+		byte[] page = pages[pageCount - 1];
+		int ref = ((pageCount - 1) << PAGE_SHIFT) | position;
+		int at = position;
+		for (int h = header; ; h >>>= 7)
+		{
+			if (h < 0x80)
+			{
+				page[at++] = (byte) h;
+				break;
+			}
+			page[at++] = (byte) (h | 0x80);
+		}
+		System.arraycopy(payload, 0, page, at, length);
+		position += need;
+		storedBytes += need;
+		return ref;
+	}
+
+	private boolean matches(int ref, int header, byte[] payload, int length)
+	{
+		byte[] page = pages[ref >>> PAGE_SHIFT];
+		int at = ref & (PAGE_BYTES - 1);
+		if (readHeader(page, at) != header)
+			return false;
+		at += headerLength(header);
+		return Arrays.equals(page, at, at + length, payload, 0, length);
+	}
+
+	private void put(int ref, int h)
+	{
+		int mask = table.length - 1;
+		int i = h & mask;
+		while (table[i] != NULL)
+			i = (i + 1) & mask;
+		table[i] = ref;
+		hashes[i] = h;
+	}
+
+	private void rehash()
+	{
+		int[] oldTable = table;
+		int[] oldHashes = hashes;
+		table = new int[oldTable.length * 2];
+		hashes = new int[oldTable.length * 2];
+		Arrays.fill(table, NULL);
+		for (int i = 0; i < oldTable.length; i++)
+		{
+			if (oldTable[i] != NULL)
+				put(oldTable[i], oldHashes[i]);
+		}
+	}
+
+	private static int hash(int header, byte[] payload, int length)
+	{
+		int h = header;
+		for (int i = 0; i < length; i++)
+			h = 31 * h + payload[i];
+		return h ^ (h >>> 16);
+	}
+
+	private static int readHeader(byte[] page, int at)
+	{
+		int header = 0;
+		int shift = 0;
+		byte b;
+		do
+		{
+			b = page[at++];
+			header |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return header;
+	}
+
+	private static int headerLength(int header)
+	{
+		int n = 1;
+		while ((header >>>= 7) != 0)
+			n++;
+		return n;
+	}
+
+	/**
+	 * private static final class Latin1Chars
+	 *
+	 * A CharSequence view over a Latin-1 entry.
+	 */
+	private static final class Latin1Chars implements CharSequence
+	{
+		private final byte[] page;
+		private final int from;
+		private final int length;
+
+		Latin1Chars(byte[] page, int from, int length)
+		{
+			this.page = page;
+			this.from = from;
+			this.length = length;
+		}
+
+		public int length()
+		{
+			return length;
+		}
+
+		public char charAt(int index)
+		{
+			if (index < 0 || index >= length)
+				throw new IndexOutOfBoundsException(index);
+			return (char) (page[from + index] & 0xFF);
+		}
+
+		public CharSequence subSequence(int start, int end)
+		{
+			if (start < 0 || start > end || end > length)
+				throw new IndexOutOfBoundsException();
+			return new Latin1Chars(page, from + start, end - start);
+		}
+
+		public String toString()
+		{
+			return new String(page, from, length, StandardCharsets.ISO_8859_1);
+		}
+	}
+}
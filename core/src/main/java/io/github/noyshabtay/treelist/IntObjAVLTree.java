@@ -0,0 +1,613 @@
+package io.github.noyshabtay.treelist;
+
+import java.util.Arrays;
+
+/**
+ *
+ * IntObjAVLTree
+ *
+ * ArrayAVLTree with values of any type: an AVL Tree with distinct int keys
+ * and V values, stored in parallel arrays.
+ *
+ * Only the values are generic; keys stay in an int[], so the search and
+ * insert descents compare primitive ints and no key is ever boxed.
+ * The operations and slot API are those of ArrayAVLTree.
+ *
+ */
+public class IntObjAVLTree<V> {
+
+	public static final int NIL = 0;
+
+	private int[] key;
+	private int[] left;
+	private int[] right;
+	private int[] parent;
+	private int[] size;
+	private byte[] height;
+	private Object[] info; // V, or null for NIL and freed slots.
+
+	private int root = NIL;
+	private int minimum = NIL;
+	private int maximum = NIL;
+	private int count = 0;
+	private int used = 1; // slots [0, used) were handed out at least once.
+	private int free = NIL; // head of the free list.
+
+	public IntObjAVLTree()
+	{
+		this(16);
+	}
+
+	/**
+	 * public IntObjAVLTree(int capacity)
+	 *
+	 * Creates an empty tree with room for capacity nodes before the arrays grow.
+	 */
+	public IntObjAVLTree(int capacity)
+	{
+		int n = Math.max(capacity, 1) + 1;
+		key = new int[n];
+		left = new int[n];
+		right = new int[n];
+		parent = new int[n];
+		size = new int[n];
+		height = new byte[n];
+		info = new Object[n];
+		height[NIL] = -1;
+	}
+
+  /**
+   * public boolean empty()
+   *
+   * returns true if and only if the tree is empty
+   *
+   */
+	public boolean empty()
+	{
+		return (root == NIL);
+	}
+
+   /**
+    * public int size()
+    *
+    * Returns the number of nodes in the tree.
+    */
+	public int size()
+	{
+		return count;
+	}
+
+   /**
+    * public int getRoot()
+    *
+    * Returns the root slot, or NIL if the tree is empty
+    */
+	public int getRoot()
+	{
+		return root;
+	}
+
+	/**
+	 * public int getKey(int slot)
+	 *
+	 * Returns the key stored in slot.
+	 */
+	public int getKey(int slot)
+	{
+		return key[slot];
+	}
+
+	/**
+	 * public V getValue(int slot)
+	 *
+	 * Returns the value stored in slot, or null for NIL.
+	 */
+	public V getValue(int slot)
+	{
+		return value(slot);
+	}
+
+ /**
+   * public V search(int k)
+   *
+   * returns the value of an item with key k if it exists in the tree
+   * otherwise, returns null
+   */
+	public V search(int k)
+	{
+		return value(searchNode(k));
+	}
+
+  /**
+   * private int searchNode(int k)
+   *
+   * Utility function for searching the slot with key k in the tree.
+   * Returns NIL if there is no such key.
+   */
+	private int searchNode(int k)
+	{
+		int x = root;
+		while (x != NIL)
+		{
+			int xk = key[x];
+			if (xk == k)
+				return x;
+			x = (xk < k) ? right[x] : left[x];
+		}
+		return NIL;
+	}
+
+  /**
+   * public int insert(int k, V i)
+   *
+   * inserts an item with key k and info i to the AVL tree.
+   * returns the number of rebalancing operations, or 0 if no rebalancing operations were necessary.
+   * returns -1 if an item with key k already exists in the tree.
+   */
+	public int insert(int k, V i)
+	{
+		int y = NIL;
+		int x = root;
+		while (x != NIL) //regular BST tree walk.
+		{
+			y = x;
+			if (k == key[x])
+				return -1;
+			x = (k < key[x]) ? left[x] : right[x];
+		}
+		int z = allocate(k, i);
+		parent[z] = y;
+		count++;
+		if (y == NIL) // tree was empty.
+		{
+			root = z;
+			minimum = z;
+			maximum = z;
+			return 0;
+		}
+		if (k < key[y])
+			left[y] = z;
+		else
+			right[y] = z;
+		if (k < key[minimum])
+			minimum = z;
+		else if (k > key[maximum])
+			maximum = z;
+		return rebalanceFrom(y);
+	}
+
+   /**
+    * public void listInsert(int i, int k, V s)
+    *
+    * Used for inserting a new item to a list implemented with an IntObjAVLTree
+    * Inserts an item with key k and value s as the item ranked i-th in the tree
+    *
+    * @pre: i > 0, i <= tree.size + 1
+    */
+	public void listInsert(int i, int k, V s)
+	{
+		int z = allocate(k, s);
+		count++;
+		if (root == NIL) //Tree is empty
+		{
+			root = z;
+			minimum = z;
+			maximum = z;
+			return;
+		}
+		if (i == count) //Insert-Last
+		{
+			right[maximum] = z;
+			parent[z] = maximum;
+			maximum = z;
+		}
+		else if (i == 1) //Insert-First
+		{
+			left[minimum] = z;
+			parent[z] = minimum;
+			minimum = z;
+		}
+		else
+		{
+			int successor = select(root, i); // current holder of rank i.
+			if (left[successor] == NIL)
+			{
+				left[successor] = z;
+				parent[z] = successor;
+			}
+			else
+			{
+				int predecessor = maxInSubTree(left[successor]);
+				right[predecessor] = z;
+				parent[z] = predecessor;
+			}
+		}
+		rebalanceFrom(parent[z]);
+	}
+
+	/**
+	 * public int treeSelect(int k)
+	 *
+	 * Returns the slot holding the k-th key in the tree,
+	 * or NIL if k is not a rank that exists in the tree.
+	 */
+	public int treeSelect(int k)
+	{
+		if (root == NIL || k < 1 || k > count)
+			return NIL;
+		if (k == 1)
+			return minimum;
+		if (k == count)
+			return maximum;
+		return select(root, k);
+	}
+
+	/**
+	 * private int select(int x, int k)
+	 *
+	 * Iterative order-statistics descent from x.
+	 * @pre: 1 <= k <= size[x]
+	 */
+	private int select(int x, int k)
+	{
+		while (true)
+		{
+			int rank = size[left[x]] + 1;
+			if (rank == k)
+				return x;
+			if (k < rank)
+				x = left[x];
+			else
+			{
+				k -= rank;
+				x = right[x];
+			}
+		}
+	}
+
+  /**
+   * public int delete(int k)
+   *
+   * deletes an item with key k from the tree, if it is there.
+   * returns the number of rebalancing operations, or 0 if no rebalancing operations were needed.
+   * returns -1 if an item with key k was not found in the tree.
+   */
+	public int delete(int k)
+	{
+		int node = searchNode(k);
+		if (node == NIL)
+			return -1;
+		return remove(node);
+	}
+
+   /**
+    * public void listDelete(int k)
+    *
+    * Used for a deleting and item from a list implemented by an IntObjAVLTree.
+    * Deletes the item in the k-th position
+    * @pre: k > 0, k <= tree.size
+    */
+	public void listDelete(int k)
+	{
+		remove(treeSelect(k));
+	}
+
+	/**
+	 * private int remove(int z)
+	 *
+	 * Unlinks slot z from the tree, rebalances, and puts z on the free list.
+	 * Returns the number of rotations performed.
+	 */
+	private int remove(int z)
+	{
+		if (z == minimum)
+			minimum = successor(z);
+		if (z == maximum)
+			maximum = predecessor(z);
+		int updateFrom;
+		if (left[z] == NIL)
+		{
+			updateFrom = parent[z];
+			transplant(z, right[z]);
+		}
+		else if (right[z] == NIL)
+		{
+			updateFrom = parent[z];
+			transplant(z, left[z]);
+		}
+		else //Case 3: The node has 2 children
+		{
+			int y = minInSubTree(right[z]); // z's successor.
+			if (parent[y] != z)
+			{
+				updateFrom = parent[y];
+				transplant(y, right[y]);
+				right[y] = right[z];
+				parent[right[y]] = y;
+			}
+			else
+				updateFrom = y;
+			transplant(z, y);
+			left[y] = left[z];
+			parent[left[y]] = y;
+		}
+		release(z);
+		count--;
+		parent[NIL] = NIL; // transplant may have written the sentinel's parent.
+		return rebalanceFrom(updateFrom);
+	}
+
+	/**
+	 * private void transplant(int u, int v)
+	 *
+	 * Replaces the subtree rooted at u with the subtree rooted at v.
+	 */
+	private void transplant(int u, int v)
+	{
+		int p = parent[u];
+		if (p == NIL)
+			root = v;
+		else if (left[p] == u)
+			left[p] = v;
+		else
+			right[p] = v;
+		parent[v] = p;
+	}
+
+	/**
+	 * private int rebalanceFrom(int y)
+	 *
+	 * The update loop: walks from y to the root, refreshing size and height
+	 * and rotating where the balance factor reached 2.
+	 * Returns the number of rotations performed.
+	 */
+	private int rebalanceFrom(int y)
+	{
+		int cnt = 0;
+		while (y != NIL)
+		{
+			int l = left[y];
+			int r = right[y];
+			size[y] = size[l] + size[r] + 1;
+			height[y] = (byte) (Math.max(height[l], height[r]) + 1);
+			int BF = height[l] - height[r];
+			if (BF == 2)
+			{
+				if (height[left[l]] < height[right[l]]) // Left then Right Case
+				{
+					leftRotate(l);
+					cnt++;
+				}
+				y = rightRotate(y);
+				cnt++;
+			}
+			else if (BF == -2)
+			{
+				if (height[right[r]] < height[left[r]]) // Right then Left Case
+				{
+					rightRotate(r);
+					cnt++;
+				}
+				y = leftRotate(y);
+				cnt++;
+			}
+			y = parent[y];
+		}
+		return cnt;
+	}
+
+   /**
+    * private int leftRotate(int x)
+    *
+    * Left rotates the subtree rooted with x and returns its new root.
+    */
+	private int leftRotate(int x)
+	{
+		int y = right[x];
+		right[x] = left[y];
+		if (left[y] != NIL)
+			parent[left[y]] = x;
+		transplant(x, y);
+		left[y] = x;
+		parent[x] = y;
+		refresh(x);
+		refresh(y);
+		return y;
+	}
+
+   /**
+    * private int rightRotate(int x)
+    *
+    * Right rotates the subtree rooted with x and returns its new root.
+    */
+	private int rightRotate(int x)
+	{
+		int y = left[x];
+		left[x] = right[y];
+		if (right[y] != NIL)
+			parent[right[y]] = x;
+		transplant(x, y);
+		right[y] = x;
+		parent[x] = y;
+		refresh(x);
+		refresh(y);
+		return y;
+	}
+
+	/**
+	 * private void refresh(int x)
+	 *
+	 * Recomputes the size and height of x from its children.
+	 */
+	private void refresh(int x)
+	{
+		size[x] = size[left[x]] + size[right[x]] + 1;
+		height[x] = (byte) (Math.max(height[left[x]], height[right[x]]) + 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V value(int x)
+	{
+		return (V) info[x];
+	}
+
+	private int minInSubTree(int x)
+	{
+		while (left[x] != NIL)
+			x = left[x];
+		return x;
+	}
+
+	private int maxInSubTree(int x)
+	{
+		while (right[x] != NIL)
+			x = right[x];
+		return x;
+	}
+
+	/**
+	 * public int successor(int x)
+	 *
+	 * Returns the slot following x in order, or NIL if x is the maximum.
+	 */
+	public int successor(int x)
+	{
+		if (right[x] != NIL)
+			return minInSubTree(right[x]);
+		int y = parent[x];
+		while (y != NIL && x == right[y])
+		{
+			x = y;
+			y = parent[y];
+		}
+		return y;
+	}
+
+	/**
+	 * public int predecessor(int x)
+	 *
+	 * Returns the slot preceding x in order, or NIL if x is the minimum.
+	 */
+	public int predecessor(int x)
+	{
+		if (left[x] != NIL)
+			return maxInSubTree(left[x]);
+		int y = parent[x];
+		while (y != NIL && x == left[y])
+		{
+			x = y;
+			y = parent[y];
+		}
+		return y;
+	}
+
+   /**
+    * public V min()
+    *
+    * Returns the info of the item with the smallest key in the tree,
+    * or null if the tree is empty
+    */
+	public V min()
+	{
+		return value(minimum);
+	}
+
+   /**
+    * public V max()
+    *
+    * Returns the info of the item with the largest key in the tree,
+    * or null if the tree is empty
+    */
+	public V max()
+	{
+		return value(maximum);
+	}
+
+  /**
+   * public int[] keysToArray()
+   *
+   * Returns a sorted array which contains all keys in the tree,
+   * or an empty array if the tree is empty.
+   */
+	public int[] keysToArray()
+	{
+		int[] arr = new int[count];
+		int j = 0;
+		for (int x = minimum; x != NIL; x = successor(x))
+			arr[j++] = key[x];
+		return arr;
+	}
+
+  /**
+   * public Object[] infoToArray()
+   *
+   * Returns an array which contains all info in the tree,
+   * sorted by their respective keys,
+   * or an empty array if the tree is empty.
+   * The array is an Object[], as a V[] cannot be created here.
+   */
+	public Object[] infoToArray()
+	{
+		Object[] arr = new Object[count];
+		int j = 0;
+		for (int x = minimum; x != NIL; x = successor(x))
+			arr[j++] = info[x];
+		return arr;
+	}
+
+	/**
+	 * private int allocate(int k, V s)
+	 *
+	 * Hands out a fresh leaf slot, reusing a freed one when possible.
+	 */
+	private int allocate(int k, V s)
+	{
+		int z;
+		if (free != NIL)
+		{
+			z = free;
+			free = parent[z];
+		}
+		else
+		{
+			if (used == key.length)
+				grow();
+			z = used++;
+		}
+		key[z] = k;
+		info[z] = s;
+		left[z] = NIL;
+		right[z] = NIL;
+		parent[z] = NIL;
+		size[z] = 1;
+		height[z] = 0;
+		return z;
+	}
+
+	/**
+	 * private void release(int z)
+	 *
+	 * Puts slot z on the free list and drops its info reference.
+	 */
+	private void release(int z)
+	{
+		info[z] = null;
+		left[z] = NIL;
+		right[z] = NIL;
+		parent[z] = free;
+		free = z;
+	}
+
+	private void grow()
+	{
+		int n = key.length + (key.length >> 1) + 1;
+		key = Arrays.copyOf(key, n);
+		left = Arrays.copyOf(left, n);
+		right = Arrays.copyOf(right, n);
+		parent = Arrays.copyOf(parent, n);
+		size = Arrays.copyOf(size, n);
+		height = Arrays.copyOf(height, n);
+		info = Arrays.copyOf(info, n);
+	}
+
+}
@@ -1,3 +1,5 @@
+package io.github.noyshabtay.treelist;
+
 
 
 /**
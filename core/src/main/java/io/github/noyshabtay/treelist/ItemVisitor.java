@@ -0,0 +1,14 @@
+package io.github.noyshabtay.treelist;
+
+/**
+ *
+ * ItemVisitor
+ *
+ * Receives the items of a range, see TreeList.forEach. The key is passed as
+ * a primitive, so no Item (or boxed key) is created per item.
+ *
+ */
+@FunctionalInterface
+public interface ItemVisitor {
+	public void visit(int key, String info);
+}
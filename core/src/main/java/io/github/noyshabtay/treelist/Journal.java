@@ -0,0 +1,624 @@
+package io.github.noyshabtay.treelist;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ *
+ * Journal
+ *
+ * An append-only write-ahead log of AVLTree mutations. Attach it with
+ * AVLTree.setJournal; from then on insert, delete, listInsert, listDelete,
+ * insertAll, deleteAll, listInsertAll and listDeleteRange append a compact
+ * binary record before they run (TreeList.insert/delete/insertAll/deleteRange
+ * go through the list operations).
+ * A split logs the items it cuts off as a listDeleteRange, and the journal
+ * moves with the first part, so TreeList.splitAt and subList keep journaling.
+ * listConcat logs the appended items as a listInsertAll.
+ * join, union, intersection and difference log each input being emptied,
+ * but the tree they return is not journaled: checkpoint it afterwards.
+ *
+ * Records are buffered and written in groups (group commit): a group goes to
+ * the file once groupSize records are pending, when the buffer is full, or on
+ * sync(). Each group is framed as [length | CRC32C | records], so a torn tail
+ * left by a crash is detected and dropped. The SyncPolicy decides when written
+ * groups are forced to the device; a mutation is durable once its group is.
+ *
+ * File format (little-endian): header [magic "AVJL" | version | base (8)], then frames.
+ * base is the tag of the snapshot the journal applies on top of (0 for none);
+ * checkpoint writes a snapshot tagged base + 1 and starts the journal over.
+ *
+ * A Journal is not thread-safe, just like the tree it is attached to.
+ *
+ */
+public class Journal implements AutoCloseable {
+
+	/**
+	 * When written groups are forced to the device.
+	 */
+	public enum SyncPolicy {
+		/** force after every group: nothing acknowledged by sync() or a full group is lost. */
+		EVERY_GROUP,
+		/**
+		 * force on the next group write once the sync interval has passed since the last force.
+		 * There is no timer: when writes stop, written groups stay unforced and pending
+		 * records stay in memory until the next group write, sync() or close().
+		 */
+		PERIODIC,
+		/** leave it to the OS: survives a process crash, not a power loss. */
+		NONE
+	}
+
+	static final byte INSERT = 1;
+	static final byte DELETE = 2;
+	static final byte LIST_INSERT = 3;
+	static final byte LIST_DELETE = 4;
+	static final byte INSERT_ALL = 5;
+	static final byte DELETE_ALL = 6;
+	static final byte LIST_INSERT_ALL = 7;
+	static final byte LIST_DELETE_RANGE = 8;
+
+	private static final int MAGIC = 0x4C4A5641; // "AVJL" read little-endian.
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 16;
+	private static final int FRAME_HEADER = 8;
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	private final FileChannel ch;
+	private final int groupSize;
+	private final SyncPolicy policy;
+	private final long syncIntervalNanos;
+	private final CRC32C crc = new CRC32C();
+	private ByteBuffer buf;
+	private int pending = 0; // records in buf.
+	private long position; // file offset where the next group goes.
+	private long base;
+	private long lastSync = System.nanoTime();
+
+	private Journal(FileChannel ch, long position, long base, int groupSize, SyncPolicy policy, long syncIntervalMillis)
+	{
+		this.ch = ch;
+		this.position = position;
+		this.base = base;
+		this.groupSize = groupSize;
+		this.policy = policy;
+		this.syncIntervalNanos = syncIntervalMillis * 1_000_000L;
+		this.buf = newBuffer(BUFFER_BYTES);
+	}
+
+	/**
+	 * public static Journal open(Path file, int groupSize, SyncPolicy policy, long syncIntervalMillis)
+	 *
+	 * Opens file for appending, creating it if needed, and drops a torn tail left by a crash.
+	 * groupSize is the number of records per group commit; syncIntervalMillis
+	 * is only used by SyncPolicy.PERIODIC.
+	 * Throws IOException if file is not a journal, IllegalArgumentException if groupSize < 1.
+	 */
+	public static Journal open(Path file, int groupSize, SyncPolicy policy, long syncIntervalMillis) throws IOException
+	{
+		if (groupSize < 1)
+			throw new IllegalArgumentException("groupSize must be positive");
+		FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			long base = 0;
+			long end = HEADER_BYTES;
+			if (ch.size() == 0)
+				writeHeader(ch, 0);
+			else
+			{
+				base = readHeader(ch, file);
+				end = new Reader(ch).skipToEnd();
+				ch.truncate(end);
+			}
+			ch.force(true);
+			return new Journal(ch, end, base, groupSize, policy, syncIntervalMillis);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			ch.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * public static AVLTree recover(Path snapshot, Path journal)
+	 *
+	 * Rebuilds a tree from the latest snapshot (if the file exists) and the journal
+	 * written on top of it (if that file exists). Runs of inserts and deletes in the
+	 * journal are replayed as insertAll/deleteAll batches.
+	 * Throws IOException if the journal belongs to another snapshot.
+	 */
+	public static AVLTree recover(Path snapshot, Path journal) throws IOException
+	{
+		AVLTree tree;
+		long tag = 0;
+		if (Files.exists(snapshot))
+		{
+			try (MappedAVLTree m = MappedAVLTree.open(snapshot))
+			{
+				tree = m.toAVLTree();
+				tag = m.tag();
+			}
+		}
+		else
+			tree = new AVLTree();
+		if (!Files.exists(journal) || Files.size(journal) == 0)
+			return tree;
+		try (FileChannel ch = FileChannel.open(journal, StandardOpenOption.READ))
+		{
+			long base = readHeader(ch, journal);
+			if (base + 1 == tag) // a checkpoint saved the snapshot but crashed before starting the journal over.
+				return tree;
+			if (base != tag)
+				throw new IOException("journal " + journal + " does not follow snapshot " + snapshot);
+			new Reader(ch).replay(tree);
+		}
+		return tree;
+	}
+
+	/**
+	 * public void checkpoint(AVLTree tree, Path snapshot)
+	 *
+	 * Saves tree (the tree this journal is attached to) as the new snapshot,
+	 * atomically replacing the old one, then starts the journal over.
+	 * A crash at any point leaves a snapshot and journal that recover correctly.
+	 */
+	public void checkpoint(AVLTree tree, Path snapshot) throws IOException
+	{
+		sync();
+		Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+		MappedAVLTree.write(tree, tmp, base + 1);
+		Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		base++;
+		ch.truncate(HEADER_BYTES);
+		writeHeader(ch, base);
+		ch.force(true);
+		position = HEADER_BYTES;
+	}
+
+	/**
+	 * public void sync()
+	 *
+	 * Writes the pending group, if any, and forces the journal to the device, whatever the policy.
+	 */
+	public void sync() throws IOException
+	{
+		writeGroup();
+		ch.force(false);
+		lastSync = System.nanoTime();
+	}
+
+	/**
+	 * public void close()
+	 *
+	 * Syncs and closes the journal.
+	 */
+	public void close() throws IOException
+	{
+		if (!ch.isOpen())
+			return;
+		try
+		{
+			sync();
+		}
+		finally
+		{
+			ch.close();
+		}
+	}
+
+	void insert(int k, String s)
+	{
+		reserve(5 + maxLength(s));
+		buf.put(INSERT).putInt(k);
+		putString(s);
+		added();
+	}
+
+	void delete(int k)
+	{
+		reserve(5);
+		buf.put(DELETE).putInt(k);
+		added();
+	}
+
+	void listInsert(int i, int k, String s)
+	{
+		reserve(9 + maxLength(s));
+		buf.put(LIST_INSERT).putInt(i).putInt(k);
+		putString(s);
+		added();
+	}
+
+	void listDelete(int i)
+	{
+		reserve(5);
+		buf.put(LIST_DELETE).putInt(i);
+		added();
+	}
+
+	void insertAll(int[] keys, String[] infos)
+	{
+		long need = 5;
+		for (String s : infos)
+			need += 4 + maxLength(s);
+		reserve(need);
+		buf.put(INSERT_ALL).putInt(keys.length);
+		for (int j = 0; j < keys.length; j++)
+		{
+			buf.putInt(keys[j]);
+			putString(infos[j]);
+		}
+		added();
+	}
+
+	void deleteAll(int[] keys)
+	{
+		reserve(5 + 4L * keys.length);
+		buf.put(DELETE_ALL).putInt(keys.length);
+		for (int k : keys)
+			buf.putInt(k);
+		added();
+	}
+
+	void listInsertAll(int i, int[] keys, String[] infos)
+	{
+		long need = 9;
+		for (String s : infos)
+			need += 4 + maxLength(s);
+		reserve(need);
+		buf.put(LIST_INSERT_ALL).putInt(i).putInt(keys.length);
+		for (int j = 0; j < keys.length; j++)
+		{
+			buf.putInt(keys[j]);
+			putString(infos[j]);
+		}
+		added();
+	}
+
+	void listDeleteRange(int i, int j)
+	{
+		reserve(9);
+		buf.put(LIST_DELETE_RANGE).putInt(i).putInt(j);
+		added();
+	}
+
+	/**
+	 * private void reserve(int n)
+	 *
+	 * Makes room for a record of n bytes, writing the pending group
+	 * or growing the buffer if it does not fit.
+	 * Throws IllegalArgumentException if no frame can hold n bytes.
+	 */
+	private void reserve(long n)
+	{
+		if (buf.remaining() >= n)
+			return;
+		if (n > Integer.MAX_VALUE - FRAME_HEADER)
+			throw new IllegalArgumentException("record too large to journal");
+		try
+		{
+			writeGroup();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		if (buf.remaining() < n)
+			buf = newBuffer(FRAME_HEADER + (int) n);
+	}
+
+	/**
+	 * private void added()
+	 *
+	 * Counts the record just buffered and commits the group when it is full.
+	 */
+	private void added()
+	{
+		if (++pending < groupSize)
+			return;
+		try
+		{
+			writeGroup();
+			if (policy == SyncPolicy.EVERY_GROUP || (policy == SyncPolicy.PERIODIC && System.nanoTime() - lastSync >= syncIntervalNanos))
+			{
+				ch.force(false);
+				lastSync = System.nanoTime();
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * private void writeGroup()
+	 *
+	 * Frames the pending records and writes them at the end of the journal.
+	 */
+	private void writeGroup() throws IOException
+	{
+		if (pending == 0)
+			return;
+		int length = buf.position() - FRAME_HEADER;
+		crc.reset();
+		crc.update(buf.duplicate().position(FRAME_HEADER).limit(FRAME_HEADER + length));
+		buf.putInt(0, length).putInt(4, (int) crc.getValue());
+		buf.flip();
+		while (buf.hasRemaining())
+			position += ch.write(buf, position);
+		buf.clear().position(FRAME_HEADER);
+		pending = 0;
+	}
+
+	/**
+	 * private void putString(String s)
+	 *
+	 * Writes s as its UTF-8 length and bytes (or -1 for null). ASCII strings,
+	 * the common case, are copied char by char with no intermediate byte[].
+	 * @pre: maxLength(s) bytes are reserved
+	 */
+	private void putString(String s)
+	{
+		if (s == null)
+		{
+			buf.putInt(-1);
+			return;
+		}
+		int at = buf.position();
+		int n = s.length();
+		buf.position(at + 4);
+		for (int c = 0; c < n; c++)
+		{
+			char ch = s.charAt(c);
+			if (ch >= 0x80) // not ASCII; encode the whole string instead.
+			{
+				byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				buf.position(at + 4);
+				buf.put(bytes);
+				buf.putInt(at, bytes.length);
+				return;
+			}
+			buf.put((byte) ch);
+		}
+		buf.putInt(at, n);
+	}
+
+	/**
+	 * private static int maxLength(String s)
+	 *
+	 * Returns an upper bound on the bytes putString writes for s.
+	 */
+	private static long maxLength(String s)
+	{
+		return (s == null) ? 4 : 4 + 3L * s.length();
+	}
+
+	private static ByteBuffer newBuffer(int capacity)
+	{
+		ByteBuffer b = ByteBuffer.allocateDirect(Math.max(capacity, BUFFER_BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+		b.position(FRAME_HEADER);
+		return b;
+	}
+
+	private static void writeHeader(FileChannel ch, long base) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION).putLong(base).flip();
+		while (header.hasRemaining())
+			ch.write(header, header.position());
+	}
+
+	private static long readHeader(FileChannel ch, Path file) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		while (header.hasRemaining())
+		{
+			if (ch.read(header, header.position()) < 0)
+				throw new IOException("not a journal: " + file);
+		}
+		if (header.getInt(0) != MAGIC)
+			throw new IOException("not a journal: " + file);
+		if (header.getInt(4) != VERSION)
+			throw new IOException("unsupported journal version " + header.getInt(4) + ": " + file);
+		return header.getLong(8);
+	}
+
+	/**
+	 * private static class Reader
+	 *
+	 * Reads the frames of a journal in order, stopping at the first one that is
+	 * incomplete or fails its CRC: everything from there on is a torn tail.
+	 */
+	private static class Reader
+	{
+		private final FileChannel ch;
+		private final CRC32C crc = new CRC32C();
+		private final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+		private ByteBuffer frame = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		private long position = HEADER_BYTES;
+
+		// the current run of inserts or deletes, replayed as one batch.
+		private byte batchOp = 0;
+		private int[] batchKeys = new int[1024];
+		private String[] batchInfos = new String[1024];
+		private int batchSize = 0;
+
+		Reader(FileChannel ch)
+		{
+			this.ch = ch;
+		}
+
+		/**
+		 * long skipToEnd()
+		 *
+		 * Returns the offset just past the last valid frame.
+		 */
+		long skipToEnd() throws IOException
+		{
+			while (nextFrame())
+			{
+				// frames are validated as they are read.
+			}
+			return position;
+		}
+
+		/**
+		 * void replay(AVLTree tree)
+		 *
+		 * Applies every record of every valid frame to tree.
+		 */
+		void replay(AVLTree tree) throws IOException
+		{
+			while (nextFrame())
+			{
+				while (frame.hasRemaining())
+				{
+					byte op = frame.get();
+					switch (op)
+					{
+					case INSERT:
+						batch(tree, INSERT);
+						add(frame.getInt(), getString());
+						break;
+					case DELETE:
+						batch(tree, DELETE);
+						add(frame.getInt(), null);
+						break;
+					case INSERT_ALL:
+						batch(tree, INSERT);
+						for (int n = frame.getInt(); n > 0; n--)
+							add(frame.getInt(), getString());
+						break;
+					case DELETE_ALL:
+						batch(tree, DELETE);
+						for (int n = frame.getInt(); n > 0; n--)
+							add(frame.getInt(), null);
+						break;
+					case LIST_INSERT:
+						batch(tree, (byte) 0);
+						int i = frame.getInt();
+						int k = frame.getInt();
+						tree.listInsert(i, k, getString());
+						break;
+					case LIST_DELETE:
+						batch(tree, (byte) 0);
+						tree.listDelete(frame.getInt());
+						break;
+					case LIST_INSERT_ALL:
+						batch(tree, (byte) 0);
+						int at = frame.getInt();
+						int[] keys = new int[frame.getInt()];
+						String[] infos = new String[keys.length];
+						for (int j = 0; j < keys.length; j++)
+						{
+							keys[j] = frame.getInt();
+							infos[j] = getString();
+						}
+						tree.listInsertAll(at, keys, infos);
+						break;
+					case LIST_DELETE_RANGE:
+						batch(tree, (byte) 0);
+						int from = frame.getInt();
+						tree.listDeleteRange(from, frame.getInt());
+						break;
+					default:
+						throw new IOException("unknown journal record " + op);
+					}
+				}
+			}
+			batch(tree, (byte) 0);
+		}
+
+		/**
+		 * private void batch(AVLTree tree, byte op)
+		 *
+		 * Applies the current batch if the next record does not continue it.
+		 */
+		private void batch(AVLTree tree, byte op)
+		{
+			if (op == batchOp)
+				return;
+			if (batchOp == INSERT)
+				tree.insertAll(Arrays.copyOf(batchKeys, batchSize), Arrays.copyOf(batchInfos, batchSize));
+			else if (batchOp == DELETE)
+				tree.deleteAll(Arrays.copyOf(batchKeys, batchSize));
+			Arrays.fill(batchInfos, 0, batchSize, null);
+			batchSize = 0;
+			batchOp = op;
+		}
+
+		private void add(int k, String s)
+		{
+			if (batchSize == batchKeys.length)
+			{
+				batchKeys = Arrays.copyOf(batchKeys, batchSize * 2);
+				batchInfos = Arrays.copyOf(batchInfos, batchSize * 2);
+			}
+			batchKeys[batchSize] = k;
+			batchInfos[batchSize] = s;
+			batchSize++;
+		}
+
+		private String getString()
+		{
+			int len = frame.getInt();
+			if (len < 0)
+				return null;
+			String s = new String(frame.array(), frame.arrayOffset() + frame.position(), len, StandardCharsets.UTF_8);
+			frame.position(frame.position() + len);
+			return s;
+		}
+
+		/**
+		 * private boolean nextFrame()
+		 *
+		 * Reads the next frame into frame, returning false at the end of the valid journal.
+		 */
+		private boolean nextFrame() throws IOException
+		{
+			header.clear();
+			if (!readFully(header, position))
+				return false;
+			int length = header.getInt(0);
+			if (length <= 0 || length > ch.size() - position - FRAME_HEADER)
+				return false;
+			if (frame.capacity() < length)
+				frame = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+			frame.clear().limit(length);
+			if (!readFully(frame, position + FRAME_HEADER))
+				return false;
+			frame.flip();
+			crc.reset();
+			crc.update(frame.duplicate());
+			if ((int) crc.getValue() != header.getInt(4))
+				return false;
+			position += FRAME_HEADER + length;
+			return true;
+		}
+
+		private boolean readFully(ByteBuffer b, long at) throws IOException
+		{
+			while (b.hasRemaining())
+			{
+				int n = ch.read(b, at);
+				if (n < 0)
+					return false;
+				at += n;
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,554 @@
+package io.github.noyshabtay.treelist;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import io.github.noyshabtay.treelist.AVLTree.AVLNode;
+import io.github.noyshabtay.treelist.AVLTree.IAVLNode;
+
+/**
+ *
+ * MappedAVLTree
+ *
+ * A read-only AVL Tree that runs directly on a snapshot file written by
+ * AVLTree.save, through FileChannel.map. Opening a snapshot only maps the file,
+ * so it takes the same few milliseconds whatever the tree size; pages are read
+ * in by the OS as search, treeSelect and iteration touch them.
+ *
+ * File format (little-endian):
+ *
+ *   header, HEADER_BYTES:
+ *     magic "AVLT" | version | count | root slot | height | pad | info start (8) | info length (8) | tag (8)
+ *   count node records of NODE_BYTES, slot s (1-based) at HEADER_BYTES + (s - 1) * NODE_BYTES:
+ *     key | left slot | right slot | size | height | info length (-1 for null) | info offset (8)
+ *   info section: UTF-8 bytes, offsets relative to info start.
+ *
+ * Nodes are stored in in-order: slot s holds the item of rank s, so treeSelect
+ * is O(1) and iteration is a sequential scan. Slot 0 (NIL) means "no node".
+ * The tree shape, sizes and heights are those of the saved tree.
+ *
+ */
+public class MappedAVLTree implements Iterable<Item>, AutoCloseable {
+
+	public static final int NIL = 0;
+
+	private static final int MAGIC = 0x544C5641; // "AVLT" read little-endian.
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 64;
+	private static final int NODE_BYTES = 32;
+	private static final int NODE_CHUNK_SHIFT = 25; // 2^25 records (1 GiB) per mapping.
+	private static final int NODE_CHUNK_MASK = (1 << NODE_CHUNK_SHIFT) - 1;
+	private static final int INFO_CHUNK_SHIFT = 30; // 1 GiB of info per mapping; no string spans two.
+	private static final long INFO_CHUNK = 1L << INFO_CHUNK_SHIFT;
+	private static final int KEY = 0;
+	private static final int LEFT = 4;
+	private static final int RIGHT = 8;
+	private static final int SIZE = 12;
+	private static final int HEIGHT = 16;
+	private static final int INFO_LENGTH = 20;
+	private static final int INFO_OFFSET = 24;
+
+	private MappedByteBuffer[] nodes;
+	private MappedByteBuffer[] info;
+	private final int count;
+	private final int root;
+	private final int height;
+	private final long tag;
+
+	private MappedAVLTree(MappedByteBuffer[] nodes, MappedByteBuffer[] info, int count, int root, int height, long tag)
+	{
+		this.nodes = nodes;
+		this.info = info;
+		this.count = count;
+		this.root = root;
+		this.height = height;
+		this.tag = tag;
+	}
+
+	/**
+	 * static void write(AVLTree tree, Path file, long tag)
+	 *
+	 * Writes tree to file in the snapshot format, replacing the file if it exists.
+	 * tag is stored in the header for Journal to match snapshots with journals.
+	 * Throws IllegalArgumentException if an info string is longer than 1 GiB in UTF-8.
+	 */
+	static void write(AVLTree tree, Path file, long tag) throws IOException
+	{
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			int n = tree.size();
+			long infoStart = HEADER_BYTES + (long) n * NODE_BYTES;
+			Writer w = new Writer(ch, infoStart);
+			IAVLNode r = tree.getRoot();
+			if (r != null)
+				w.writeSubTree(r, 1);
+			w.flush();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(slotOf(r, 1)).putInt(heightOf(r)).putInt(0);
+			header.putLong(infoStart).putLong(w.infoLength).putLong(tag);
+			header.rewind(); // all HEADER_BYTES: an empty tree has nothing after the header.
+			while (header.hasRemaining())
+				ch.write(header, header.position());
+			ch.force(true);
+		}
+	}
+
+	/**
+	 * public static MappedAVLTree open(Path file)
+	 *
+	 * Maps a snapshot written by AVLTree.save. Nothing is read besides the header.
+	 * Throws IOException if the file is not a valid snapshot.
+	 */
+	public static MappedAVLTree open(Path file) throws IOException
+	{
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			long length = ch.size();
+			if (length < HEADER_BYTES)
+				throw new IOException("not an AVLTree snapshot: " + file);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining())
+			{
+				if (ch.read(header, header.position()) < 0)
+					throw new IOException("truncated or corrupt snapshot: " + file);
+			}
+			if (header.getInt(0) != MAGIC)
+				throw new IOException("not an AVLTree snapshot: " + file);
+			if (header.getInt(4) != VERSION)
+				throw new IOException("unsupported snapshot version " + header.getInt(4) + ": " + file);
+			int n = header.getInt(8);
+			int root = header.getInt(12);
+			int height = header.getInt(16);
+			long infoStart = header.getLong(24);
+			long infoLength = header.getLong(32);
+			long tag = header.getLong(40);
+			if (n < 0 || infoStart != HEADER_BYTES + (long) n * NODE_BYTES || infoStart + infoLength != length)
+				throw new IOException("truncated or corrupt snapshot: " + file);
+			MappedByteBuffer[] nodes = new MappedByteBuffer[(int) ((n + (long) NODE_CHUNK_MASK) >>> NODE_CHUNK_SHIFT)];
+			for (int c = 0; c < nodes.length; c++)
+			{
+				long records = Math.min(n - ((long) c << NODE_CHUNK_SHIFT), 1L << NODE_CHUNK_SHIFT);
+				nodes[c] = map(ch, HEADER_BYTES + ((long) c << NODE_CHUNK_SHIFT) * NODE_BYTES, records * NODE_BYTES);
+			}
+			MappedByteBuffer[] info = new MappedByteBuffer[(int) ((infoLength + INFO_CHUNK - 1) >>> INFO_CHUNK_SHIFT)];
+			for (int c = 0; c < info.length; c++)
+			{
+				long from = (long) c << INFO_CHUNK_SHIFT;
+				info[c] = map(ch, infoStart + from, Math.min(infoLength - from, INFO_CHUNK));
+			}
+			return new MappedAVLTree(nodes, info, n, root, height, tag);
+		}
+	}
+
+  /**
+   * public boolean empty()
+   *
+   * returns true if and only if the tree is empty
+   */
+	public boolean empty()
+	{
+		return count == 0;
+	}
+
+   /**
+    * public int size()
+    *
+    * Returns the number of nodes in the tree.
+    */
+	public int size()
+	{
+		return count;
+	}
+
+   /**
+    * public int height()
+    *
+    * Returns the height of the saved tree, or -1 if it is empty.
+    */
+	public int height()
+	{
+		return height;
+	}
+
+   /**
+    * public int getRoot()
+    *
+    * Returns the root slot, or NIL if the tree is empty
+    */
+	public int getRoot()
+	{
+		return root;
+	}
+
+	/**
+	 * long tag()
+	 *
+	 * Returns the tag the snapshot was written with (0 for AVLTree.save).
+	 */
+	long tag()
+	{
+		return tag;
+	}
+
+	/**
+	 * public int getKey(int slot)
+	 *
+	 * Returns the key stored in slot.
+	 */
+	public int getKey(int slot)
+	{
+		return getInt(slot, KEY);
+	}
+
+	/**
+	 * public String getValue(int slot)
+	 *
+	 * Returns the info stored in slot, or null for NIL.
+	 */
+	public String getValue(int slot)
+	{
+		if (slot == NIL)
+			return null;
+		int len = getInt(slot, INFO_LENGTH);
+		if (len < 0)
+			return null;
+		if (len == 0) // may sit at the very end of the info region, past the last mapping.
+			return "";
+		long off = nodes[(slot - 1) >>> NODE_CHUNK_SHIFT].getLong(recordOffset(slot) + INFO_OFFSET);
+		byte[] bytes = new byte[len];
+		info[(int) (off >>> INFO_CHUNK_SHIFT)].get((int) (off & (INFO_CHUNK - 1)), bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	public int getLeft(int slot)
+	{
+		return getInt(slot, LEFT);
+	}
+
+	public int getRight(int slot)
+	{
+		return getInt(slot, RIGHT);
+	}
+
+	public int getSize(int slot)
+	{
+		return (slot == NIL) ? 0 : getInt(slot, SIZE);
+	}
+
+	public int getHeight(int slot)
+	{
+		return (slot == NIL) ? -1 : getInt(slot, HEIGHT);
+	}
+
+ /**
+   * public String search(int k)
+   *
+   * returns the info of an item with key k if it exists in the tree
+   * otherwise, returns null
+   * The saved tree must have been used with keys in BST order (not as a list).
+   */
+	public String search(int k)
+	{
+		int x = root;
+		while (x != NIL)
+		{
+			int xk = getInt(x, KEY);
+			if (xk == k)
+				return getValue(x);
+			x = (xk < k) ? getInt(x, RIGHT) : getInt(x, LEFT);
+		}
+		return null;
+	}
+
+	/**
+	 * public int treeSelect(int k)
+	 *
+	 * Returns the slot holding the k-th item in the tree, which is k itself,
+	 * or NIL if k is not a rank that exists in the tree.
+	 */
+	public int treeSelect(int k)
+	{
+		if (k < 1 || k > count)
+			return NIL;
+		return k;
+	}
+
+   /**
+    * public String min()
+    *
+    * Returns the info of the item with the smallest key in the tree,
+    * or null if the tree is empty
+    */
+	public String min()
+	{
+		return getValue(treeSelect(1));
+	}
+
+   /**
+    * public String max()
+    *
+    * Returns the info of the item with the largest key in the tree,
+    * or null if the tree is empty
+    */
+	public String max()
+	{
+		return getValue(treeSelect(count));
+	}
+
+  /**
+   * public int[] keysToArray()
+   *
+   * Returns an array which contains all keys in the tree, in order.
+   */
+	public int[] keysToArray()
+	{
+		int[] arr = new int[count];
+		for (int s = 1; s <= count; s++)
+			arr[s - 1] = getInt(s, KEY);
+		return arr;
+	}
+
+  /**
+   * public String[] infoToArray()
+   *
+   * Returns an array which contains all info in the tree, in order.
+   */
+	public String[] infoToArray()
+	{
+		String[] arr = new String[count];
+		for (int s = 1; s <= count; s++)
+			arr[s - 1] = getValue(s);
+		return arr;
+	}
+
+	/**
+	 * public Iterator<Item> iterator()
+	 *
+	 * Returns an iterator over the items in order, scanning the mapped records sequentially.
+	 */
+	public Iterator<Item> iterator()
+	{
+		return new Iterator<Item>()
+		{
+			private int next = 1;
+
+			public boolean hasNext()
+			{
+				return next <= count;
+			}
+
+			public Item next()
+			{
+				if (next > count)
+					throw new NoSuchElementException();
+				int s = next++;
+				return new Item(getInt(s, KEY), getValue(s));
+			}
+		};
+	}
+
+	/**
+	 * public PrimitiveIterator.OfInt keyIterator()
+	 *
+	 * Returns an iterator over the keys in order, without decoding any info.
+	 */
+	public PrimitiveIterator.OfInt keyIterator()
+	{
+		return new PrimitiveIterator.OfInt()
+		{
+			private int next = 1;
+
+			public boolean hasNext()
+			{
+				return next <= count;
+			}
+
+			public int nextInt()
+			{
+				if (next > count)
+					throw new NoSuchElementException();
+				return getInt(next++, KEY);
+			}
+		};
+	}
+
+	/**
+	 * public AVLTree toAVLTree()
+	 *
+	 * Copies the snapshot into a new, mutable AVLTree with the same items in the same order, in O(n) time.
+	 */
+	public AVLTree toAVLTree()
+	{
+		return AVLTree.listFromArray(keysToArray(), infoToArray());
+	}
+
+	/**
+	 * public void close()
+	 *
+	 * Unmaps the file. Idempotent; the tree must not be used afterwards.
+	 */
+	public void close()
+	{
+		if (nodes == null)
+			return;
+		for (MappedByteBuffer b : nodes)
+			DirectMemory.free(b);
+		for (MappedByteBuffer b : info)
+			DirectMemory.free(b);
+		nodes = null;
+		info = null;
+	}
+
+	private int getInt(int slot, int field)
+	{
+		return nodes[(slot - 1) >>> NODE_CHUNK_SHIFT].getInt(recordOffset(slot) + field);
+	}
+
+	private static int recordOffset(int slot)
+	{
+		return ((slot - 1) & NODE_CHUNK_MASK) * NODE_BYTES;
+	}
+
+	private static MappedByteBuffer map(FileChannel ch, long position, long length) throws IOException
+	{
+		MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, position, length);
+		b.order(ByteOrder.LITTLE_ENDIAN);
+		return b;
+	}
+
+	private static int sizeOf(IAVLNode x)
+	{
+		return (x == null) ? 0 : ((AVLNode) x).getSize();
+	}
+
+	private static int heightOf(IAVLNode x)
+	{
+		return (x == null) ? -1 : x.getHeight();
+	}
+
+	/**
+	 * private static int slotOf(IAVLNode x, int lo)
+	 *
+	 * Returns the slot of x, whose sub-tree starts at slot lo, or NIL if x is null.
+	 */
+	private static int slotOf(IAVLNode x, int lo)
+	{
+		return (x == null) ? NIL : lo + sizeOf(x.getLeft());
+	}
+
+	/**
+	 * private static class Writer
+	 *
+	 * Streams node records and info bytes to their two regions of the file
+	 * through buffers. Both regions are written front to back, in order.
+	 */
+	private static class Writer
+	{
+		private static final int BUFFER_BYTES = 1 << 20;
+
+		private final FileChannel ch;
+		private final long infoStart;
+		private final ByteBuffer nodeBuf = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		private final ByteBuffer infoBuf = ByteBuffer.allocateDirect(BUFFER_BYTES);
+		private long nodePos = HEADER_BYTES; // file position of nodeBuf's first byte.
+		private long infoPos = 0; // info offset of infoBuf's first byte.
+		private long infoLength = 0;
+
+		Writer(FileChannel ch, long infoStart)
+		{
+			this.ch = ch;
+			this.infoStart = infoStart;
+		}
+
+		/**
+		 * void writeSubTree(IAVLNode x, int lo)
+		 *
+		 * Writes x's sub-tree, whose leftmost node gets slot lo, in order.
+		 * Recursion depth is the tree height.
+		 */
+		void writeSubTree(IAVLNode x, int lo) throws IOException
+		{
+			IAVLNode l = x.getLeft();
+			IAVLNode r = x.getRight();
+			int slot = slotOf(x, lo);
+			if (l != null)
+				writeSubTree(l, lo);
+			if (nodeBuf.remaining() < NODE_BYTES)
+				flushNodes();
+			nodeBuf.putInt(x.getKey()).putInt(slotOf(l, lo)).putInt(slotOf(r, slot + 1));
+			nodeBuf.putInt(sizeOf(x)).putInt(x.getHeight());
+			String s = x.getValue();
+			if (s == null)
+				nodeBuf.putInt(-1).putLong(0);
+			else
+			{
+				byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				nodeBuf.putInt(bytes.length).putLong(appendInfo(bytes));
+			}
+			if (r != null)
+				writeSubTree(r, slot + 1);
+		}
+
+		/**
+		 * private long appendInfo(byte[] bytes)
+		 *
+		 * Appends bytes to the info region, padding to the next INFO_CHUNK
+		 * if they would straddle one, and returns their offset.
+		 */
+		private long appendInfo(byte[] bytes) throws IOException
+		{
+			if (bytes.length > INFO_CHUNK)
+				throw new IllegalArgumentException("info longer than 1 GiB");
+			if ((infoLength & (INFO_CHUNK - 1)) + bytes.length > INFO_CHUNK)
+			{
+				flushInfo();
+				infoLength = (infoLength + INFO_CHUNK - 1) & -INFO_CHUNK; // the gap reads back as zeros.
+				infoPos = infoLength;
+			}
+			long off = infoLength;
+			if (bytes.length > infoBuf.remaining())
+				flushInfo();
+			if (bytes.length > infoBuf.capacity())
+			{
+				ch.write(ByteBuffer.wrap(bytes), infoStart + infoPos);
+				infoPos += bytes.length;
+			}
+			else
+				infoBuf.put(bytes);
+			infoLength += bytes.length;
+			return off;
+		}
+
+		void flush() throws IOException
+		{
+			flushNodes();
+			flushInfo();
+		}
+
+		private void flushNodes() throws IOException
+		{
+			nodeBuf.flip();
+			while (nodeBuf.hasRemaining())
+				nodePos += ch.write(nodeBuf, nodePos);
+			nodeBuf.clear();
+		}
+
+		private void flushInfo() throws IOException
+		{
+			infoBuf.flip();
+			while (infoBuf.hasRemaining())
+				infoPos += ch.write(infoBuf, infoStart + infoPos);
+			infoBuf.clear();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package io.github.noyshabtay.treelist;
+
+import java.util.function.LongBinaryOperator;
+
+/**
+ *
+ * Monoid
+ *
+ * The augmentation of a measured AVLTree (see AVLTree(Monoid)): every node
+ * caches the combined measure of its sub-tree, so a range of ranks or keys
+ * is aggregated in O(log n) from O(log n) cached sub-trees.
+ *
+ * combine must be associative with identity as its neutral element; it need
+ * not be commutative, as measures are always combined in order. Measures are
+ * longs, so sums, counts, minima and maxima need no boxing.
+ * A count of matching items is sum((k, s) -> matches ? 1 : 0).
+ *
+ */
+public interface Monoid {
+
+	/**
+	 * The measure of a single item.
+	 */
+	@FunctionalInterface
+	public interface Measure {
+		/** Measures an item by its key. */
+		public static final Measure KEY = (key, info) -> key;
+
+		public long of(int key, String info);
+	}
+
+	public long identity(); // the neutral element of combine
+	public long combine(long a, long b); // a then b, associative
+	public long measure(int key, String info); // the measure of one item
+
+	/**
+	 * public static Monoid of(long identity, LongBinaryOperator combine, Measure measure)
+	 *
+	 * Returns the monoid with the given identity, combine function and item measure.
+	 */
+	public static Monoid of(long identity, LongBinaryOperator combine, Measure measure)
+	{
+		return new Monoid() {
+			public long identity()
+			{
+				return identity;
+			}
+
+			public long combine(long a, long b)
+			{
+				return combine.applyAsLong(a, b);
+			}
+
+			public long measure(int key, String info)
+			{
+				return measure.of(key, info);
+			}
+		};
+	}
+
+	/**
+	 * public static Monoid sum(Measure measure)
+	 *
+	 * Returns the sum of the measures, 0 for an empty range.
+	 */
+	public static Monoid sum(Measure measure)
+	{
+		return of(0, Long::sum, measure);
+	}
+
+	/**
+	 * public static Monoid min(Measure measure)
+	 *
+	 * Returns the smallest measure, Long.MAX_VALUE for an empty range.
+	 */
+	public static Monoid min(Measure measure)
+	{
+		return of(Long.MAX_VALUE, Math::min, measure);
+	}
+
+	/**
+	 * public static Monoid max(Measure measure)
+	 *
+	 * Returns the largest measure, Long.MIN_VALUE for an empty range.
+	 */
+	public static Monoid max(Measure measure)
+	{
+		return of(Long.MIN_VALUE, Math::max, measure);
+	}
+}
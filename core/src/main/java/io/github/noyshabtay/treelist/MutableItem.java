@@ -0,0 +1,31 @@
+package io.github.noyshabtay.treelist;
+
+/**
+ *
+ * MutableItem
+ *
+ * A reusable holder for one item, filled by TreeList.retrieveInto,
+ * so a read loop needs no Item per call.
+ *
+ */
+public class MutableItem {
+
+	private int key;
+	private String info;
+
+	public int getKey()
+	{
+		return key;
+	}
+
+	public String getInfo()
+	{
+		return info;
+	}
+
+	void set(int key, String info)
+	{
+		this.key = key;
+		this.info = info;
+	}
+}
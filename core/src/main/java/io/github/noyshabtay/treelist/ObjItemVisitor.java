@@ -0,0 +1,14 @@
+package io.github.noyshabtay.treelist;
+
+/**
+ *
+ * ObjItemVisitor
+ *
+ * Receives the items of a range, see ObjTreeList.forEach. The key is passed
+ * as a primitive, so no key is boxed per item.
+ *
+ */
+@FunctionalInterface
+public interface ObjItemVisitor<V> {
+	public void visit(int key, V info);
+}
@@ -0,0 +1,144 @@
+package io.github.noyshabtay.treelist;
+
+/**
+ *
+ * ObjTreeList
+ *
+ * A Tree list with int keys and info of any type V, on an IntObjAVLTree.
+ *
+ * It follows the contract of TreeList: positions are 0-based, and
+ * insert and delete return -1 for a position outside the list.
+ * Keys stay primitive in the tree and in ObjItemVisitor, so only the info
+ * is generic and no key is ever boxed.
+ *
+ */
+public class ObjTreeList<V> {
+
+	private final IntObjAVLTree<V> tree;
+
+	public ObjTreeList()
+	{
+		tree = new IntObjAVLTree<V>();
+	}
+
+	/**
+	 * public ObjTreeList(int capacity)
+	 *
+	 * Creates an empty list with room for capacity items before its tree grows.
+	 */
+	public ObjTreeList(int capacity)
+	{
+		tree = new IntObjAVLTree<V>(capacity);
+	}
+
+   /**
+    * public int size()
+    *
+    * Returns the number of items in the list.
+    */
+	public int size()
+	{
+		return tree.size();
+	}
+
+  /**
+   * public int retrieveKey(int i)
+   *
+   * returns the key of the item in the ith position, creating no objects.
+   * throws IndexOutOfBoundsException if there is no ith position.
+   */
+	public int retrieveKey(int i)
+	{
+		checkIndex(i);
+		return tree.getKey(tree.treeSelect(i+1));
+	}
+
+  /**
+   * public V retrieveInfo(int i)
+   *
+   * returns the info of the item in the ith position if it exists in the list.
+   * otherwise, returns null
+   */
+	public V retrieveInfo(int i)
+	{
+		if (i < 0 || i >= size())
+			return null;
+		return tree.getValue(tree.treeSelect(i+1));
+	}
+
+  /**
+   * public void forEach(int i, int j, ObjItemVisitor<? super V> v)
+   *
+   * passes the items in positions i..j-1 to v, in order:
+   * one descent to position i, then successor steps.
+   * The list must not be modified by v.
+   * throws IndexOutOfBoundsException if i<0, j>n or i>j.
+   */
+	public void forEach(int i, int j, ObjItemVisitor<? super V> v)
+	{
+		if (i < 0 || j > size() || i > j)
+			throw new IndexOutOfBoundsException("range [" + i + ", " + j + ") of a list of size " + size());
+		if (i == j)
+			return;
+		int x = tree.treeSelect(i+1);
+		for (int n = j - i; n > 0; n--)
+		{
+			v.visit(tree.getKey(x), tree.getValue(x));
+			x = tree.successor(x);
+		}
+	}
+
+  /**
+   * public int insert(int i, int k, V s)
+   *
+   * inserts an item to the ith position in list with key k and info s.
+   * returns -1 if i<0 or i>n otherwise return 0.
+   */
+	public int insert(int i, int k, V s)
+	{
+		if (i < 0 || i > size())
+			return -1;
+		tree.listInsert(i+1, k, s);
+		return 0;
+	}
+
+  /**
+   * public int delete(int i)
+   *
+   * deletes an item in the ith position from the list.
+   * returns -1 if i<0 or i>n-1 otherwise returns 0.
+   */
+	public int delete(int i)
+	{
+		if (i < 0 || i > size() - 1)
+			return -1;
+		tree.listDelete(i+1);
+		return 0;
+	}
+
+  /**
+   * public int[] keysToArray()
+   *
+   * Returns the keys of the list, in order.
+   */
+	public int[] keysToArray()
+	{
+		return tree.keysToArray();
+	}
+
+  /**
+   * public Object[] infoToArray()
+   *
+   * Returns the info of the list, in order.
+   */
+	public Object[] infoToArray()
+	{
+		return tree.infoToArray();
+	}
+
+	private void checkIndex(int i)
+	{
+		if (i < 0 || i >= size())
+			throw new IndexOutOfBoundsException("position " + i + " of a list of size " + size());
+	}
+}
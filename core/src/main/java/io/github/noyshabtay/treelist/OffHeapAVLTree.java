@@ -0,0 +1,735 @@
+package io.github.noyshabtay.treelist;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ *
+ * OffHeapAVLTree
+ *
+ * An implementation of a AVL Tree with
+ * distinct integer keys and info, whose nodes and info live outside the Java heap.
+ *
+ * Like ArrayAVLTree, a node is an int slot and slot 0 is the NIL sentinel
+ * (size 0, height -1). But each slot is a 32-byte record inside direct
+ * ByteBuffer pages of 2^PAGE_SHIFT records:
+ *
+ *   key (4) | left (4) | right (4) | parent (4) | size (4) | height (4) | info (8)
+ *
+ * where info is a reference into a Utf8Arena. The heap holds only the page
+ * tables, so the heap footprint stays flat whatever the element count,
+ * and the GC never traces the nodes.
+ *
+ * close() frees all the memory at once. After that, every operation
+ * throws IllegalStateException.
+ *
+ */
+public class OffHeapAVLTree implements AutoCloseable {
+
+	public static final int NIL = 0;
+
+	private static final int PAGE_SHIFT = 16;
+	private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+	private static final int NODE_SHIFT = 5; // 32-byte records.
+	private static final int KEY = 0;
+	private static final int LEFT = 4;
+	private static final int RIGHT = 8;
+	private static final int PARENT = 12;
+	private static final int SIZE = 16;
+	private static final int HEIGHT = 20;
+	private static final int INFO = 24;
+
+	private ByteBuffer[] pages = new ByteBuffer[4];
+	private int pageCount = 0;
+	private Utf8Arena arena = new Utf8Arena();
+
+	private int root = NIL;
+	private int minimum = NIL;
+	private int maximum = NIL;
+	private int count = 0;
+	private int used = 1; // slots [0, used) were handed out at least once.
+	private int free = NIL; // head of the free list.
+
+	public OffHeapAVLTree()
+	{
+		addPage();
+		setHeight(NIL, -1);
+		setInfo(NIL, Utf8Arena.NULL);
+	}
+
+  /**
+   * public boolean empty()
+   *
+   * returns true if and only if the tree is empty
+   *
+   */
+	public boolean empty()
+	{
+		return (root == NIL);
+	}
+
+   /**
+    * public int size()
+    *
+    * Returns the number of nodes in the tree.
+    */
+	public int size()
+	{
+		return count;
+	}
+
+   /**
+    * public int getRoot()
+    *
+    * Returns the root slot, or NIL if the tree is empty
+    */
+	public int getRoot()
+	{
+		return root;
+	}
+
+	/**
+	 * public int getKey(int slot)
+	 *
+	 * Returns the key stored in slot.
+	 */
+	public int getKey(int slot)
+	{
+		checkOpen();
+		return key(slot);
+	}
+
+	/**
+	 * public String getValue(int slot)
+	 *
+	 * Returns the info stored in slot (decoded onto the heap), or null for NIL.
+	 */
+	public String getValue(int slot)
+	{
+		checkOpen();
+		return arena.get(info(slot));
+	}
+
+ /**
+   * public String search(int k)
+   *
+   * returns the info of an item with key k if it exists in the tree
+   * otherwise, returns null
+   */
+	public String search(int k)
+	{
+		checkOpen();
+		return arena.get(info(searchNode(k)));
+	}
+
+  /**
+   * private int searchNode(int k)
+   *
+   * Utility function for searching the slot with key k in the tree.
+   * Returns NIL if there is no such key.
+   */
+	private int searchNode(int k)
+	{
+		int x = root;
+		while (x != NIL)
+		{
+			int xk = key(x);
+			if (xk == k)
+				return x;
+			x = (xk < k) ? right(x) : left(x);
+		}
+		return NIL;
+	}
+
+  /**
+   * public int insert(int k, String i)
+   *
+   * inserts an item with key k and info i to the AVL tree.
+   * returns the number of rebalancing operations, or 0 if no rebalancing operations were necessary.
+   * returns -1 if an item with key k already exists in the tree.
+   */
+	public int insert(int k, String i)
+	{
+		checkOpen();
+		int y = NIL;
+		int x = root;
+		while (x != NIL) //regular BST tree walk.
+		{
+			y = x;
+			if (k == key(x))
+				return -1;
+			x = (k < key(x)) ? left(x) : right(x);
+		}
+		int z = allocate(k, i);
+		setParent(z, y);
+		count++;
+		if (y == NIL) // tree was empty.
+		{
+			root = z;
+			minimum = z;
+			maximum = z;
+			return 0;
+		}
+		if (k < key(y))
+			setLeft(y, z);
+		else
+			setRight(y, z);
+		if (k < key(minimum))
+			minimum = z;
+		else if (k > key(maximum))
+			maximum = z;
+		return rebalanceFrom(y);
+	}
+
+   /**
+    * public int listInsert(int i, int k, String s)
+    *
+    * Used for inserting a new item to a list implemented with an OffHeapAVLTree
+    * Inserts an item with key k and value s as the item ranked i-th in the tree
+    * returns the number of rebalancing operations, or 0 if no rebalancing operations were necessary.
+    *
+    * @pre: i > 0, i <= tree.size + 1
+    */
+	public int listInsert(int i, int k, String s)
+	{
+		checkOpen();
+		int z = allocate(k, s);
+		count++;
+		if (root == NIL) //Tree is empty
+		{
+			root = z;
+			minimum = z;
+			maximum = z;
+			return 0;
+		}
+		if (i == count) //Insert-Last
+		{
+			setRight(maximum, z);
+			setParent(z, maximum);
+			maximum = z;
+		}
+		else if (i == 1) //Insert-First
+		{
+			setLeft(minimum, z);
+			setParent(z, minimum);
+			minimum = z;
+		}
+		else
+		{
+			int successor = select(root, i); // current holder of rank i.
+			if (left(successor) == NIL)
+			{
+				setLeft(successor, z);
+				setParent(z, successor);
+			}
+			else
+			{
+				int predecessor = maxInSubTree(left(successor));
+				setRight(predecessor, z);
+				setParent(z, predecessor);
+			}
+		}
+		return rebalanceFrom(parent(z));
+	}
+
+	/**
+	 * public int treeSelect(int k)
+	 *
+	 * Returns the slot holding the k-th key in the tree,
+	 * or NIL if k is not a rank that exists in the tree.
+	 */
+	public int treeSelect(int k)
+	{
+		checkOpen();
+		if (root == NIL || k < 1 || k > count)
+			return NIL;
+		if (k == 1)
+			return minimum;
+		if (k == count)
+			return maximum;
+		return select(root, k);
+	}
+
+	/**
+	 * private int select(int x, int k)
+	 *
+	 * Iterative order-statistics descent from x.
+	 * @pre: 1 <= k <= size(x)
+	 */
+	private int select(int x, int k)
+	{
+		while (true)
+		{
+			int rank = size(left(x)) + 1;
+			if (rank == k)
+				return x;
+			if (k < rank)
+				x = left(x);
+			else
+			{
+				k -= rank;
+				x = right(x);
+			}
+		}
+	}
+
+  /**
+   * public int delete(int k)
+   *
+   * deletes an item with key k from the tree, if it is there.
+   * returns the number of rebalancing operations, or 0 if no rebalancing operations were needed.
+   * returns -1 if an item with key k was not found in the tree.
+   */
+	public int delete(int k)
+	{
+		checkOpen();
+		int node = searchNode(k);
+		if (node == NIL)
+			return -1;
+		return remove(node);
+	}
+
+   /**
+    * public int listDelete(int k)
+    *
+    * Used for a deleting and item from a list implemented by an OffHeapAVLTree.
+    * Deletes the item in the k-th position
+    * returns the number of rebalancing operations, or 0 if no rebalancing operations were needed.
+    * @pre: k > 0, k <= tree.size
+    */
+	public int listDelete(int k)
+	{
+		return remove(treeSelect(k));
+	}
+
+	/**
+	 * private int remove(int z)
+	 *
+	 * Unlinks slot z from the tree, rebalances, and puts z on the free list.
+	 * Returns the number of rotations performed.
+	 */
+	private int remove(int z)
+	{
+		if (z == minimum)
+			minimum = successor(z);
+		if (z == maximum)
+			maximum = predecessor(z);
+		int updateFrom;
+		if (left(z) == NIL)
+		{
+			updateFrom = parent(z);
+			transplant(z, right(z));
+		}
+		else if (right(z) == NIL)
+		{
+			updateFrom = parent(z);
+			transplant(z, left(z));
+		}
+		else //Case 3: The node has 2 children
+		{
+			int y = minInSubTree(right(z)); // z's successor.
+			if (parent(y) != z)
+			{
+				updateFrom = parent(y);
+				transplant(y, right(y));
+				setRight(y, right(z));
+				setParent(right(y), y);
+			}
+			else
+				updateFrom = y;
+			transplant(z, y);
+			setLeft(y, left(z));
+			setParent(left(y), y);
+		}
+		release(z);
+		count--;
+		setParent(NIL, NIL); // transplant may have written the sentinel's parent.
+		return rebalanceFrom(updateFrom);
+	}
+
+	/**
+	 * private void transplant(int u, int v)
+	 *
+	 * Replaces the subtree rooted at u with the subtree rooted at v.
+	 */
+	private void transplant(int u, int v)
+	{
+		int p = parent(u);
+		if (p == NIL)
+			root = v;
+		else if (left(p) == u)
+			setLeft(p, v);
+		else
+			setRight(p, v);
+		setParent(v, p);
+	}
+
+	/**
+	 * private int rebalanceFrom(int y)
+	 *
+	 * The update loop: walks from y to the root, refreshing size and height
+	 * and rotating where the balance factor reached 2.
+	 * Returns the number of rotations performed.
+	 */
+	private int rebalanceFrom(int y)
+	{
+		int cnt = 0;
+		while (y != NIL)
+		{
+			int l = left(y);
+			int r = right(y);
+			setSize(y, size(l) + size(r) + 1);
+			setHeight(y, Math.max(height(l), height(r)) + 1);
+			int BF = height(l) - height(r);
+			if (BF == 2)
+			{
+				if (height(left(l)) < height(right(l))) // Left then Right Case
+				{
+					leftRotate(l);
+					cnt++;
+				}
+				y = rightRotate(y);
+				cnt++;
+			}
+			else if (BF == -2)
+			{
+				if (height(right(r)) < height(left(r))) // Right then Left Case
+				{
+					rightRotate(r);
+					cnt++;
+				}
+				y = leftRotate(y);
+				cnt++;
+			}
+			y = parent(y);
+		}
+		return cnt;
+	}
+
+   /**
+    * private int leftRotate(int x)
+    *
+    * Left rotates the subtree rooted with x and returns its new root.
+    */
+	private int leftRotate(int x)
+	{
+		int y = right(x);
+		setRight(x, left(y));
+		if (left(y) != NIL)
+			setParent(left(y), x);
+		transplant(x, y);
+		setLeft(y, x);
+		setParent(x, y);
+		refresh(x);
+		refresh(y);
+		return y;
+	}
+
+   /**
+    * private int rightRotate(int x)
+    *
+    * Right rotates the subtree rooted with x and returns its new root.
+    */
+	private int rightRotate(int x)
+	{
+		int y = left(x);
+		setLeft(x, right(y));
+		if (right(y) != NIL)
+			setParent(right(y), x);
+		transplant(x, y);
+		setRight(y, x);
+		setParent(x, y);
+		refresh(x);
+		refresh(y);
+		return y;
+	}
+
+	/**
+	 * private void refresh(int x)
+	 *
+	 * Recomputes the size and height of x from its children.
+	 */
+	private void refresh(int x)
+	{
+		setSize(x, size(left(x)) + size(right(x)) + 1);
+		setHeight(x, Math.max(height(left(x)), height(right(x))) + 1);
+	}
+
+	private int minInSubTree(int x)
+	{
+		while (left(x) != NIL)
+			x = left(x);
+		return x;
+	}
+
+	private int maxInSubTree(int x)
+	{
+		while (right(x) != NIL)
+			x = right(x);
+		return x;
+	}
+
+	/**
+	 * public int successor(int x)
+	 *
+	 * Returns the slot following x in order, or NIL if x is the maximum.
+	 */
+	public int successor(int x)
+	{
+		if (right(x) != NIL)
+			return minInSubTree(right(x));
+		int y = parent(x);
+		while (y != NIL && x == right(y))
+		{
+			x = y;
+			y = parent(y);
+		}
+		return y;
+	}
+
+	/**
+	 * public int predecessor(int x)
+	 *
+	 * Returns the slot preceding x in order, or NIL if x is the minimum.
+	 */
+	public int predecessor(int x)
+	{
+		if (left(x) != NIL)
+			return maxInSubTree(left(x));
+		int y = parent(x);
+		while (y != NIL && x == left(y))
+		{
+			x = y;
+			y = parent(y);
+		}
+		return y;
+	}
+
+   /**
+    * public String min()
+    *
+    * Returns the info of the item with the smallest key in the tree,
+    * or null if the tree is empty
+    */
+	public String min()
+	{
+		checkOpen();
+		return arena.get(info(minimum));
+	}
+
+   /**
+    * public String max()
+    *
+    * Returns the info of the item with the largest key in the tree,
+    * or null if the tree is empty
+    */
+	public String max()
+	{
+		checkOpen();
+		return arena.get(info(maximum));
+	}
+
+  /**
+   * public int[] keysToArray()
+   *
+   * Returns a sorted array which contains all keys in the tree,
+   * or an empty array if the tree is empty.
+   */
+	public int[] keysToArray()
+	{
+		checkOpen();
+		int[] arr = new int[count];
+		int j = 0;
+		for (int x = minimum; x != NIL; x = successor(x))
+			arr[j++] = key(x);
+		return arr;
+	}
+
+  /**
+   * public String[] infoToArray()
+   *
+   * Returns an array which contains all info in the tree,
+   * sorted by their respective keys,
+   * or an empty array if the tree is empty.
+   */
+	public String[] infoToArray()
+	{
+		checkOpen();
+		String[] arr = new String[count];
+		int j = 0;
+		for (int x = minimum; x != NIL; x = successor(x))
+			arr[j++] = arena.get(info(x));
+		return arr;
+	}
+
+	/**
+	 * public long offHeapBytes()
+	 *
+	 * Returns the off-heap bytes held by the node pages and the info arena,
+	 * including the info of deleted items, which is only reclaimed by close().
+	 */
+	public long offHeapBytes()
+	{
+		checkOpen();
+		return ((long) pageCount << (PAGE_SHIFT + NODE_SHIFT)) + arena.allocatedBytes();
+	}
+
+	/**
+	 * public void close()
+	 *
+	 * Frees the node pages and the info arena.
+	 * Idempotent; any other operation afterwards throws IllegalStateException.
+	 */
+	public void close()
+	{
+		if (pages == null)
+			return;
+		for (int p = 0; p < pageCount; p++)
+			DirectMemory.free(pages[p]);
+		arena.close();
+		pages = null;
+		arena = null;
+		root = minimum = maximum = free = NIL;
+		count = 0;
+	}
+
+	private void checkOpen()
+	{
+		if (pages == null)
+			throw new IllegalStateException("tree is closed");
+	}
+
+	/**
+	 * private int allocate(int k, String s)
+	 *
+	 * Hands out a fresh leaf slot, reusing a freed one when possible.
+	 */
+	private int allocate(int k, String s)
+	{
+		int z;
+		if (free != NIL)
+		{
+			z = free;
+			free = parent(z);
+		}
+		else
+		{
+			if (used == pageCount << PAGE_SHIFT)
+				addPage();
+			z = used++;
+		}
+		setKey(z, k);
+		setInfo(z, arena.add(s));
+		setLeft(z, NIL);
+		setRight(z, NIL);
+		setParent(z, NIL);
+		setSize(z, 1);
+		setHeight(z, 0);
+		return z;
+	}
+
+	/**
+	 * private void release(int z)
+	 *
+	 * Puts slot z on the free list and drops its info.
+	 */
+	private void release(int z)
+	{
+		arena.remove(info(z));
+		setInfo(z, Utf8Arena.NULL);
+		setLeft(z, NIL);
+		setRight(z, NIL);
+		setParent(z, free);
+		free = z;
+	}
+
+	private void addPage()
+	{
+		if (pageCount == pages.length)
+			pages = Arrays.copyOf(pages, pageCount * 2);
+		pages[pageCount++] = ByteBuffer.allocateDirect(1 << (PAGE_SHIFT + NODE_SHIFT)).order(ByteOrder.nativeOrder());
+	}
+
+	// record accessors: slot x lives in page x >>> PAGE_SHIFT at record x & PAGE_MASK.
+
+	private int getInt(int x, int field)
+	{
+		return pages[x >>> PAGE_SHIFT].getInt(((x & PAGE_MASK) << NODE_SHIFT) + field);
+	}
+
+	private void putInt(int x, int field, int v)
+	{
+		pages[x >>> PAGE_SHIFT].putInt(((x & PAGE_MASK) << NODE_SHIFT) + field, v);
+	}
+
+	private int key(int x)
+	{
+		return getInt(x, KEY);
+	}
+
+	private int left(int x)
+	{
+		return getInt(x, LEFT);
+	}
+
+	private int right(int x)
+	{
+		return getInt(x, RIGHT);
+	}
+
+	private int parent(int x)
+	{
+		return getInt(x, PARENT);
+	}
+
+	private int size(int x)
+	{
+		return getInt(x, SIZE);
+	}
+
+	private int height(int x)
+	{
+		return getInt(x, HEIGHT);
+	}
+
+	private long info(int x)
+	{
+		return pages[x >>> PAGE_SHIFT].getLong(((x & PAGE_MASK) << NODE_SHIFT) + INFO);
+	}
+
+	private void setKey(int x, int v)
+	{
+		putInt(x, KEY, v);
+	}
+
+	private void setLeft(int x, int v)
+	{
+		putInt(x, LEFT, v);
+	}
+
+	private void setRight(int x, int v)
+	{
+		putInt(x, RIGHT, v);
+	}
+
+	private void setParent(int x, int v)
+	{
+		putInt(x, PARENT, v);
+	}
+
+	private void setSize(int x, int v)
+	{
+		putInt(x, SIZE, v);
+	}
+
+	private void setHeight(int x, int v)
+	{
+		putInt(x, HEIGHT, v);
+	}
+
+	private void setInfo(int x, long v)
+	{
+		pages[x >>> PAGE_SHIFT].putLong(((x & PAGE_MASK) << NODE_SHIFT) + INFO, v);
+	}
+}
@@ -0,0 +1,473 @@
+package io.github.noyshabtay.treelist;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ *
+ * PersistentAVLTree
+ *
+ * A path-copying AVL Tree with distinct integer keys and info.
+ *
+ * Nodes are immutable. Every insert, delete, listInsert and listDelete copies
+ * only the nodes on the path it walks (O(log n) allocations), publishes the new
+ * root, and shares every untouched sub-tree with the previous version.
+ * snapshot() is therefore O(1): it returns another handle on the current root.
+ * A snapshot never changes, whatever happens to the tree it was taken from,
+ * so readers can search, select and iterate it with no coordination.
+ *
+ * A handle is meant to have one writer at a time; any number of threads may
+ * read it or its snapshots.
+ *
+ */
+public class PersistentAVLTree implements Iterable<PersistentAVLTree.Node> {
+
+	private volatile Node root;
+	private int rotations; // rotations done by the running update.
+	private boolean changed; // whether the running update found its target.
+
+	public PersistentAVLTree()
+	{
+	}
+
+	private PersistentAVLTree(Node root)
+	{
+		this.root = root;
+	}
+
+	/**
+	 * public PersistentAVLTree snapshot()
+	 *
+	 * Returns a frozen view of the current version in O(1).
+	 * Updating the returned handle forks it; this tree is not affected, and vice versa.
+	 */
+	public PersistentAVLTree snapshot()
+	{
+		return new PersistentAVLTree(root);
+	}
+
+  /**
+   * public boolean empty()
+   *
+   * returns true if and only if the tree is empty
+   */
+	public boolean empty()
+	{
+		return root == null;
+	}
+
+   /**
+    * public int size()
+    *
+    * Returns the number of nodes in the tree.
+    */
+	public int size()
+	{
+		return sizeOf(root);
+	}
+
+   /**
+    * public Node getRoot()
+    *
+    * Returns the root node of the current version, or null if the tree is empty
+    */
+	public Node getRoot()
+	{
+		return root;
+	}
+
+ /**
+   * public String search(int k)
+   *
+   * returns the info of an item with key k if it exists in the tree
+   * otherwise, returns null
+   */
+	public String search(int k)
+	{
+		Node node = root;
+		while (node != null)
+		{
+			if (node.key == k)
+				return node.value;
+			node = (node.key < k) ? node.right : node.left;
+		}
+		return null;
+	}
+
+	/**
+	 * public Node treeSelect(int k)
+	 *
+	 * Returns the node with the k-th key in the tree,
+	 * or null if k is not a rank that exists in the tree.
+	 */
+	public Node treeSelect(int k)
+	{
+		Node node = root;
+		if (k < 1 || k > sizeOf(node))
+			return null;
+		while (true)
+		{
+			int rank = sizeOf(node.left) + 1;
+			if (rank == k)
+				return node;
+			if (k < rank)
+				node = node.left;
+			else
+			{
+				k -= rank;
+				node = node.right;
+			}
+		}
+	}
+
+   /**
+    * public String min()
+    *
+    * Returns the info of the item with the smallest key in the tree,
+    * or null if the tree is empty
+    */
+	public String min()
+	{
+		Node node = root;
+		if (node == null)
+			return null;
+		while (node.left != null)
+			node = node.left;
+		return node.value;
+	}
+
+   /**
+    * public String max()
+    *
+    * Returns the info of the item with the largest key in the tree,
+    * or null if the tree is empty
+    */
+	public String max()
+	{
+		Node node = root;
+		if (node == null)
+			return null;
+		while (node.right != null)
+			node = node.right;
+		return node.value;
+	}
+
+  /**
+   * public int insert(int k, String i)
+   *
+   * inserts an item with key k and info i to the tree, publishing a new version.
+   * returns the number of rebalancing operations, or 0 if no rebalancing operations were necessary.
+   * returns -1 if an item with key k already exists in the tree.
+   */
+	public int insert(int k, String i)
+	{
+		rotations = 0;
+		changed = true;
+		Node newRoot = insert(root, k, i);
+		if (!changed)
+			return -1;
+		root = newRoot;
+		return rotations;
+	}
+
+  /**
+   * public int delete(int k)
+   *
+   * deletes an item with key k from the tree, if it is there, publishing a new version.
+   * returns the number of rebalancing operations, or 0 if no rebalancing operations were needed.
+   * returns -1 if an item with key k was not found in the tree.
+   */
+	public int delete(int k)
+	{
+		rotations = 0;
+		changed = false;
+		Node newRoot = delete(root, k);
+		if (!changed)
+			return -1;
+		root = newRoot;
+		return rotations;
+	}
+
+   /**
+    * public void listInsert(int i, int k, String s)
+    *
+    * Used for inserting a new item to a list implemented with a PersistentAVLTree.
+    * Inserts an item with key k and value s as the item ranked i-th in the tree.
+    * @pre: i > 0, i <= tree.size + 1
+    */
+	public void listInsert(int i, int k, String s)
+	{
+		root = listInsert(root, i, k, s);
+	}
+
+   /**
+    * public void listDelete(int k)
+    *
+    * Used for deleting an item from a list implemented with a PersistentAVLTree.
+    * Deletes the item in the k-th position.
+    * @pre: k > 0, k <= tree.size
+    */
+	public void listDelete(int k)
+	{
+		root = listDelete(root, k);
+	}
+
+  /**
+   * public int[] keysToArray()
+   *
+   * Returns an array which contains all keys in the tree, in order.
+   */
+	public int[] keysToArray()
+	{
+		Node r = root;
+		int[] arr = new int[sizeOf(r)];
+		int j = 0;
+		for (Iterator<Node> it = new NodeIterator(r); it.hasNext();)
+			arr[j++] = it.next().key;
+		return arr;
+	}
+
+  /**
+   * public String[] infoToArray()
+   *
+   * Returns an array which contains all info in the tree, in order.
+   */
+	public String[] infoToArray()
+	{
+		Node r = root;
+		String[] arr = new String[sizeOf(r)];
+		int j = 0;
+		for (Iterator<Node> it = new NodeIterator(r); it.hasNext();)
+			arr[j++] = it.next().value;
+		return arr;
+	}
+
+	/**
+	 * public Iterator<Node> iterator()
+	 *
+	 * Returns an in-order iterator over the version current at the time of the call.
+	 */
+	public Iterator<Node> iterator()
+	{
+		return new NodeIterator(root);
+	}
+
+	private Node insert(Node x, int k, String s)
+	{
+		if (x == null)
+			return new Node(k, s, null, null);
+		if (k == x.key)
+		{
+			changed = false;
+			return x;
+		}
+		if (k < x.key)
+		{
+			Node l = insert(x.left, k, s);
+			return (l == x.left) ? x : balance(x.key, x.value, l, x.right);
+		}
+		Node r = insert(x.right, k, s);
+		return (r == x.right) ? x : balance(x.key, x.value, x.left, r);
+	}
+
+	private Node delete(Node x, int k)
+	{
+		if (x == null)
+			return null;
+		if (k < x.key)
+		{
+			Node l = delete(x.left, k);
+			return (l == x.left) ? x : balance(x.key, x.value, l, x.right);
+		}
+		if (k > x.key)
+		{
+			Node r = delete(x.right, k);
+			return (r == x.right) ? x : balance(x.key, x.value, x.left, r);
+		}
+		changed = true;
+		return removeRoot(x);
+	}
+
+	private Node listInsert(Node x, int i, int k, String s)
+	{
+		if (x == null)
+			return new Node(k, s, null, null);
+		int rank = sizeOf(x.left) + 1;
+		if (i <= rank)
+			return balance(x.key, x.value, listInsert(x.left, i, k, s), x.right);
+		return balance(x.key, x.value, x.left, listInsert(x.right, i - rank, k, s));
+	}
+
+	private Node listDelete(Node x, int i)
+	{
+		int rank = sizeOf(x.left) + 1;
+		if (i < rank)
+			return balance(x.key, x.value, listDelete(x.left, i), x.right);
+		if (i > rank)
+			return balance(x.key, x.value, x.left, listDelete(x.right, i - rank));
+		return removeRoot(x);
+	}
+
+	/**
+	 * private Node removeRoot(Node x)
+	 *
+	 * Returns x's sub-tree without x: its successor, copied, takes its place.
+	 */
+	private Node removeRoot(Node x)
+	{
+		if (x.left == null)
+			return x.right;
+		if (x.right == null)
+			return x.left;
+		Node successor = x.right;
+		while (successor.left != null)
+			successor = successor.left;
+		return balance(successor.key, successor.value, x.left, deleteMin(x.right));
+	}
+
+	private Node deleteMin(Node x)
+	{
+		if (x.left == null)
+			return x.right;
+		return balance(x.key, x.value, deleteMin(x.left), x.right);
+	}
+
+	/**
+	 * private Node balance(int k, String v, Node l, Node r)
+	 *
+	 * Returns a new node (k, v) over l and r, rotated if l and r differ in height by 2.
+	 * Only new nodes are created; l and r may be shared with older versions.
+	 */
+	private Node balance(int k, String v, Node l, Node r)
+	{
+		int BF = heightOf(l) - heightOf(r);
+		if (BF == 2)
+		{
+			if (heightOf(l.left) < heightOf(l.right)) // Left then Right Case
+			{
+				rotations += 2;
+				Node lr = l.right;
+				return new Node(lr.key, lr.value, new Node(l.key, l.value, l.left, lr.left), new Node(k, v, lr.right, r));
+			}
+			rotations++; // Right Case
+			return new Node(l.key, l.value, l.left, new Node(k, v, l.right, r));
+		}
+		if (BF == -2)
+		{
+			if (heightOf(r.right) < heightOf(r.left)) // Right then Left Case
+			{
+				rotations += 2;
+				Node rl = r.left;
+				return new Node(rl.key, rl.value, new Node(k, v, l, rl.left), new Node(r.key, r.value, rl.right, r.right));
+			}
+			rotations++; // Left Case
+			return new Node(r.key, r.value, new Node(k, v, l, r.left), r.right);
+		}
+		return new Node(k, v, l, r);
+	}
+
+	private static int sizeOf(Node x)
+	{
+		return (x == null) ? 0 : x.size;
+	}
+
+	private static int heightOf(Node x)
+	{
+		return (x == null) ? -1 : x.height;
+	}
+
+	/**
+	 * public static final class Node
+	 *
+	 * An immutable tree node. Size and height are fixed at construction.
+	 */
+	public static final class Node {
+		private final int key;
+		private final String value;
+		private final Node left;
+		private final Node right;
+		private final int height;
+		private final int size;
+
+		private Node(int key, String value, Node left, Node right)
+		{
+			this.key = key;
+			this.value = value;
+			this.left = left;
+			this.right = right;
+			this.height = Math.max(heightOf(left), heightOf(right)) + 1;
+			this.size = sizeOf(left) + sizeOf(right) + 1;
+		}
+
+		public int getKey()
+		{
+			return key;
+		}
+
+		public String getValue()
+		{
+			return value;
+		}
+
+		public Node getLeft()
+		{
+			return left;
+		}
+
+		public Node getRight()
+		{
+			return right;
+		}
+
+		public int getHeight()
+		{
+			return height;
+		}
+
+		public int getSize()
+		{
+			return size;
+		}
+	}
+
+	/**
+	 * private static class NodeIterator
+	 *
+	 * In-order iterator over a frozen root, using an explicit stack
+	 * as nodes have no parent links.
+	 */
+	private static class NodeIterator implements Iterator<Node>
+	{
+		private final Node[] stack;
+		private int depth = 0;
+
+		NodeIterator(Node root)
+		{
+			stack = new Node[heightOf(root) + 1];
+			pushLeft(root);
+		}
+
+		private void pushLeft(Node x)
+		{
+			while (x != null)
+			{
+				stack[depth++] = x;
+				x = x.left;
+			}
+		}
+
+		public boolean hasNext()
+		{
+			return depth > 0;
+		}
+
+		public Node next()
+		{
+			if (depth == 0)
+				throw new NoSuchElementException();
+			Node x = stack[--depth];
+			pushLeft(x.right);
+			return x;
+		}
+	}
+}
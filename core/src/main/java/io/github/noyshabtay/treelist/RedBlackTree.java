@@ -0,0 +1,175 @@
+package io.github.noyshabtay.treelist;
+
+/**
+ *
+ * RedBlackTree
+ *
+ * A positional red-black tree, rebalanced as in Cormen et al., "Introduction
+ * to Algorithms", ch. 13. The root is black. A red node has no red child.
+ * Every path from a node down to a missing child passes the same number of
+ * black nodes.
+ *
+ * An insertion rotates at most twice and a deletion at most three times.
+ * Most fixes only recolour, and recolourings are O(1) amortized.
+ * The height is at most 2 log(n + 1).
+ *
+ */
+public class RedBlackTree extends BalancedListTree {
+
+	/**
+	 * public static RedBlackTree fromArray(int[] keys, String[] infos)
+	 *
+	 * Returns a tree whose ith item is (keys[i], infos[i]), built in O(n) time.
+	 * The nodes on the deepest level of a non-trivial tree are red, all others black.
+	 * Throws IllegalArgumentException if the arrays differ in length.
+	 */
+	public static RedBlackTree fromArray(int[] keys, String[] infos)
+	{
+		return build(new RedBlackTree(), keys, infos);
+	}
+
+	void initBuilt(Node x, int height, int depth, int treeHeight)
+	{
+		x.red = depth == treeHeight && depth > 0;
+	}
+
+	/**
+	 * void fixInsert(Node x)
+	 *
+	 * Colours x red. While its parent is red too: recolour if the uncle is red,
+	 * and otherwise rotate (once or twice) and stop.
+	 */
+	void fixInsert(Node x)
+	{
+		x.red = true;
+		while (x != root && x.parent.red)
+		{
+			Node p = x.parent;
+			Node g = p.parent; // a red node is not the root.
+			if (p == g.left)
+			{
+				Node u = g.right;
+				if (isRed(u))
+				{
+					p.red = false;
+					u.red = false;
+					g.red = true;
+					x = g;
+					continue;
+				}
+				if (x == p.right)
+				{
+					rotateLeft(p);
+					p = x;
+				}
+				p.red = false;
+				g.red = true;
+				rotateRight(g);
+			}
+			else
+			{
+				Node u = g.left;
+				if (isRed(u))
+				{
+					p.red = false;
+					u.red = false;
+					g.red = true;
+					x = g;
+					continue;
+				}
+				if (x == p.left)
+				{
+					rotateRight(p);
+					p = x;
+				}
+				p.red = false;
+				g.red = true;
+				rotateLeft(g);
+			}
+			break;
+		}
+		root.red = false;
+	}
+
+	/**
+	 * void fixDelete(Node z, Node x, Node p)
+	 *
+	 * Nothing to do if z was red; x is recoloured black if it is red.
+	 * Otherwise x is "doubly black" and the fix-up walks up until a rotation absorbs it.
+	 */
+	void fixDelete(Node z, Node x, Node p)
+	{
+		if (z.red)
+			return;
+		while (x != root && !isRed(x))
+		{
+			// x may be null, but then its sibling is not, so the null side is x's.
+			if (x == p.left)
+			{
+				Node w = p.right;
+				if (w.red)
+				{
+					w.red = false;
+					p.red = true;
+					rotateLeft(p);
+					w = p.right;
+				}
+				if (!isRed(w.left) && !isRed(w.right))
+				{
+					w.red = true;
+					x = p;
+					p = x.parent;
+					continue;
+				}
+				if (!isRed(w.right))
+				{
+					w.left.red = false;
+					w.red = true;
+					rotateRight(w);
+					w = p.right;
+				}
+				w.red = p.red;
+				p.red = false;
+				w.right.red = false;
+				rotateLeft(p);
+			}
+			else
+			{
+				Node w = p.left;
+				if (w.red)
+				{
+					w.red = false;
+					p.red = true;
+					rotateRight(p);
+					w = p.left;
+				}
+				if (!isRed(w.left) && !isRed(w.right))
+				{
+					w.red = true;
+					x = p;
+					p = x.parent;
+					continue;
+				}
+				if (!isRed(w.left))
+				{
+					w.right.red = false;
+					w.red = true;
+					rotateLeft(w);
+					w = p.left;
+				}
+				w.red = p.red;
+				p.red = false;
+				w.left.red = false;
+				rotateRight(p);
+			}
+			x = root;
+		}
+		if (x != null)
+			x.red = false;
+	}
+
+	static boolean isRed(Node x)
+	{
+		return x != null && x.red;
+	}
+}
@@ -0,0 +1,602 @@
+package io.github.noyshabtay.treelist;
+
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+
+
+/**
+ *
+ * Tree list
+ * 
+ * 315838185
+ * Noy Shabtay
+ * noyshabtay
+ * 
+ * 312126436
+ * Roy Naftaly
+ * roynaftaly
+ *
+ * An implementation of a Tree list with  key and info
+ *
+ * By default the list runs on an AVLTree; a Backend picks another structure
+ * under the same contract, so workloads can be compared head to head.
+ *
+ */
+public class TreeList implements Iterable<Item>{
+
+	/**
+	 * The structure a TreeList runs on.
+	 */
+	public enum Backend {
+		/** AVLTree: O(log n) everything, O(log n) concat/splitAt. */
+		AVL,
+		/** ArrayAVLTree: the AVL tree in primitive arrays. */
+		ARRAY_AVL,
+		/** BPlusTree: O(log_B n) node visits with wide, contiguous nodes. */
+		B_PLUS,
+		/** WAVLTree: weak AVL balance, at most two rotations per update. */
+		WAVL,
+		/** RedBlackTree: red-black balance, at most three rotations per update. */
+		RED_BLACK
+	}
+	 
+	public AVLTree tree; // the AVL backend, or null with another backend.
+	private IListBackend backend; // null with the AVL backend.
+ 
+	public TreeList()
+	{
+		 tree = new AVLTree();
+	}
+
+	/**
+	 * public TreeList(Backend kind)
+	 *
+	 * Creates an empty list on the given backend.
+	 */
+	public TreeList(Backend kind)
+	{
+		 if (kind == Backend.AVL)
+			 tree = new AVLTree();
+		 else
+			 backend = newBackend(kind);
+	}
+
+	/**
+	 * public TreeList(InfoArena arena)
+	 *
+	 * Creates an empty list whose info strings are kept in arena (see InfoArena).
+	 */
+	public TreeList(InfoArena arena)
+	{
+		 tree = new AVLTree(arena);
+	}
+
+	/**
+	 * public TreeList(Monoid monoid)
+	 *
+	 * Creates an empty list on a measured AVLTree, for aggregate (see Monoid).
+	 */
+	public TreeList(Monoid monoid)
+	{
+		 tree = new AVLTree(monoid);
+	}
+
+	private TreeList(AVLTree tree)
+	{
+		 this.tree = tree;
+	}
+
+	private TreeList(IListBackend backend)
+	{
+		 this.backend = backend;
+	}
+
+	private static IListBackend newBackend(Backend kind)
+	{
+		 if (kind == Backend.ARRAY_AVL)
+			 return new ArrayAVLTree();
+		 if (kind == Backend.WAVL)
+			 return new WAVLTree();
+		 if (kind == Backend.RED_BLACK)
+			 return new RedBlackTree();
+		 return new BPlusTree();
+	}
+
+ /**
+   * public static TreeList fromArray(Backend kind, int[] keys, String[] infos)
+   *
+   * returns a list on the given backend whose ith item has key keys[i] and info infos[i].
+   * Built in O(n) time, except on ARRAY_AVL (O(n log n)).
+   */
+	public static TreeList fromArray(Backend kind, int[] keys, String[] infos)
+	{
+		if (kind == Backend.AVL)
+			return fromArray(keys, infos);
+		if (kind == Backend.B_PLUS)
+			return new TreeList(BPlusTree.fromArray(keys, infos));
+		if (kind == Backend.WAVL)
+			return new TreeList(WAVLTree.fromArray(keys, infos));
+		if (kind == Backend.RED_BLACK)
+			return new TreeList(RedBlackTree.fromArray(keys, infos));
+		if (keys.length != infos.length)
+			throw new IllegalArgumentException("keys and infos differ in length");
+		TreeList list = new TreeList(kind);
+		for (int i = 0; i < keys.length; i++)
+			list.backend.insertAt(i, keys[i], infos[i]);
+		return list;
+	}
+
+  /**
+   * public static TreeList fromArray(Monoid monoid, int[] keys, String[] infos)
+   *
+   * returns a list on an AVLTree measured by monoid whose ith item has key keys[i] and info infos[i].
+   * Built in O(n) time.
+   */
+	public static TreeList fromArray(Monoid monoid, int[] keys, String[] infos)
+	{
+		return new TreeList(AVLTree.listFromArray(keys, infos, monoid));
+	}
+
+	/**
+	 * public Backend backend()
+	 *
+	 * Returns the structure this list runs on.
+	 */
+	public Backend backend()
+	{
+		if (backend == null)
+			return Backend.AVL;
+		if (backend instanceof ArrayAVLTree)
+			return Backend.ARRAY_AVL;
+		if (backend instanceof WAVLTree)
+			return Backend.WAVL;
+		if (backend instanceof RedBlackTree)
+			return Backend.RED_BLACK;
+		return Backend.B_PLUS;
+	}
+
+   /**
+    * public int size()
+    *
+    * Returns the number of items in the list.
+    */
+	public int size()
+	{
+		return (backend == null) ? tree.size() : backend.size();
+	}
+
+ /**
+   * public static TreeList fromArray(int[] keys, String[] infos)
+   *
+   * returns a list whose ith item has key keys[i] and info infos[i], built in O(n) time.
+   */
+	public static TreeList fromArray(int[] keys, String[] infos)
+	{
+		return new TreeList(AVLTree.listFromArray(keys, infos));
+	}
+
+ /**
+   * public static TreeList fromArray(Item[] items)
+   *
+   * returns a list whose ith item is items[i], built in O(n) time.
+   */
+	public static TreeList fromArray(Item[] items)
+	{
+		int[] keys = new int[items.length];
+		String[] infos = new String[items.length];
+		for (int i = 0; i < items.length; i++)
+		{
+			keys[i] = items[i].getKey();
+			infos[i] = items[i].getInfo();
+		}
+		return fromArray(keys, infos);
+	}
+ /**
+   * public Item retrieve(int i)
+   *
+   * returns the item in the ith position if it exists in the list.
+   * otherwise, returns null
+   */
+	public Item retrieve(int i)
+	{
+		if (backend != null)
+			return (i < 0 || i >= backend.size()) ? null : new Item(backend.keyAt(i), backend.infoAt(i));
+		AVLTree.IAVLNode node = tree.treeSelect(i+1);
+		if (node == null)
+			return null;
+		return new Item(node.getKey(),node.getValue());  // to be replaced by student code
+	}
+
+  /**
+   * public int retrieveKey(int i)
+   *
+   * returns the key of the item in the ith position, creating no objects.
+   * throws IndexOutOfBoundsException if there is no ith position.
+   */
+	public int retrieveKey(int i)
+	{
+		checkIndex(i);
+		if (backend != null)
+			return backend.keyAt(i);
+		return tree.treeSelect(i+1).getKey();
+	}
+
+  /**
+   * public String retrieveInfo(int i)
+   *
+   * returns the info of the item in the ith position if it exists in the list.
+   * otherwise, returns null
+   */
+	public String retrieveInfo(int i)
+	{
+		if (i < 0 || i >= size())
+			return null;
+		if (backend != null)
+			return backend.infoAt(i);
+		return tree.treeSelect(i+1).getValue();
+	}
+
+  /**
+   * public boolean retrieveInto(int i, MutableItem dst)
+   *
+   * copies the key and info of the item in the ith position into dst, creating no objects.
+   * returns false, leaving dst as it was, if there is no ith position.
+   */
+	public boolean retrieveInto(int i, MutableItem dst)
+	{
+		if (i < 0 || i >= size())
+			return false;
+		if (backend != null)
+		{
+			dst.set(backend.keyAt(i), backend.infoAt(i));
+			return true;
+		}
+		AVLTree.IAVLNode node = tree.treeSelect(i+1);
+		dst.set(node.getKey(), node.getValue());
+		return true;
+	}
+
+  /**
+   * public void forEach(int i, int j, ItemVisitor v)
+   *
+   * passes the items in positions i..j-1 to v, in order.
+   * Costs one descent to position i and then O(1) amortized per item
+   * (successor steps, or a leaf walk on B_PLUS), rather than j-i retrieves.
+   * The list must not be modified by v.
+   * throws IndexOutOfBoundsException if i<0, j>n or i>j.
+   */
+	public void forEach(int i, int j, ItemVisitor v)
+	{
+		if (i < 0 || j > size() || i > j)
+			throw new IndexOutOfBoundsException("range [" + i + ", " + j + ") of a list of size " + size());
+		if (backend != null)
+		{
+			backend.forEach(i, j, v);
+			return;
+		}
+		if (i == j)
+			return;
+		AVLTree.IAVLNode x = tree.treeSelect(i+1);
+		for (int n = j - i; n > 0; n--)
+		{
+			v.visit(x.getKey(), x.getValue());
+			x = AVLTree.findSuccessor(x);
+		}
+	}
+
+  /**
+   * public long aggregate(int i, int j)
+   *
+   * returns the monoid's combined measure of the items in positions i..j-1, in order,
+   * or its identity if i == j, in O(log n) time (see AVLTree.aggregate).
+   * throws IndexOutOfBoundsException if i<0, j>n or i>j.
+   * throws IllegalStateException unless the list was created with a Monoid.
+   */
+	public long aggregate(int i, int j)
+	{
+		if (tree == null || tree.monoid() == null)
+			throw new IllegalStateException("the list is not measured");
+		if (i < 0 || j > size() || i > j)
+			throw new IndexOutOfBoundsException("range [" + i + ", " + j + ") of a list of size " + size());
+		return tree.aggregate(i+1, j);
+	}
+
+	private void checkIndex(int i)
+	{
+		if (i < 0 || i >= size())
+			throw new IndexOutOfBoundsException("position " + i + " of a list of size " + size());
+	}
+
+  /**
+   * public int insert(int i, int k, String s) 
+   *
+   * inserts an item to the ith position in list  with key k and  info s.
+   * returns -1 if i<0 or i>n otherwise return 0.
+   */
+   public int insert(int i, int k, String s) {
+	  if (i < 0 || i > size())
+		  return -1;
+	  if (backend != null)
+		  backend.insertAt(i, k, s);
+	  else
+		  tree.listInsert(i+1, k, s);
+	  return 0;
+   }
+
+  /**
+   * public int delete(int i)
+   *
+   * deletes an item in the ith posittion from the list.
+	* returns -1 if i<0 or i>n-1 otherwise returns 0.
+   */
+   public int delete(int i)
+   {
+	   if (i < 0 || i> size() -1)
+		   return -1;
+	   if (backend != null)
+		   backend.deleteAt(i);
+	   else
+		   tree.listDelete(i+1);
+	   return 0;
+   }
+
+  /**
+   * public int insertAll(int i, Item[] items)
+   *
+   * inserts items as one block at positions i..i+m-1, in order.
+   * On AVL the block is built as a sub-tree and grafted in, in O(m + log n) time,
+   * instead of m separate inserts; other backends insert item by item.
+   * returns -1 if i<0 or i>n otherwise return 0.
+   */
+   public int insertAll(int i, Item[] items)
+   {
+	   if (i < 0 || i > size())
+		   return -1;
+	   if (backend != null)
+	   {
+		   for (int j = 0; j < items.length; j++)
+			   backend.insertAt(i + j, items[j].getKey(), items[j].getInfo());
+		   return 0;
+	   }
+	   int[] keys = new int[items.length];
+	   String[] infos = new String[items.length];
+	   for (int j = 0; j < items.length; j++)
+	   {
+		   keys[j] = items[j].getKey();
+		   infos[j] = items[j].getInfo();
+	   }
+	   tree.listInsertAll(i+1, keys, infos);
+	   return 0;
+   }
+
+  /**
+   * public int deleteRange(int i, int j)
+   *
+   * deletes the items in positions i..j-1 from the list.
+   * On AVL they are cut out with split/join in O(log n) time, instead of j-i separate deletes;
+   * other backends delete item by item.
+   * returns -1 if i<0, j>n or i>j otherwise returns 0.
+   */
+   public int deleteRange(int i, int j)
+   {
+	   if (i < 0 || j > size() || i > j)
+		   return -1;
+	   if (backend != null)
+	   {
+		   for (int k = j - 1; k >= i; k--)
+			   backend.deleteAt(k);
+		   return 0;
+	   }
+	   tree.listDeleteRange(i+1, j);
+	   return 0;
+   }
+
+  /**
+   * public void concat(TreeList other)
+   *
+   * appends the items of other to the end of the list in O(log n) time
+   * (O(m log n) for m items of other unless both lists are on AVL, measured by the same monoid).
+   * other is left empty.
+   * Throws IllegalArgumentException if other is this list.
+   */
+   public void concat(TreeList other)
+   {
+	   if (other == this)
+		   throw new IllegalArgumentException("cannot concatenate a list to itself");
+	   if (backend == null && other.backend == null && tree.monoid() == other.tree.monoid())
+	   {
+		   tree.listConcat(other.tree);
+		   return;
+	   }
+	   int m = other.size();
+	   for (int j = 0; j < m; j++)
+	   {
+		   Item it = other.retrieve(j);
+		   insert(size(), it.getKey(), it.getInfo());
+	   }
+	   other.clear();
+   }
+
+   /**
+    * private void clear()
+    *
+    * Empties the list, keeping its backend. On AVL this is one listDeleteRange,
+    * so the tree, with its journal, cache, arena and monoid, stays in place.
+    */
+   private void clear()
+   {
+	   if (backend == null)
+		   tree.listDeleteRange(1, tree.size());
+	   else
+		   backend = newBackend(backend());
+   }
+
+  /**
+   * public TreeList splitAt(int i)
+   *
+   * cuts the list before the ith position in O(log n) time:
+   * the list keeps positions 0..i-1 and the returned list holds the former positions i..n-1.
+   * On a backend other than AVL the tail is moved item by item, in O((n-i) log n) time.
+   * returns null if i<0 or i>n.
+   */
+   public TreeList splitAt(int i)
+   {
+	   if (i < 0 || i > size())
+		   return null;
+	   if (backend != null)
+	   {
+		   TreeList tail = new TreeList(backend());
+		   for (int j = i; j < backend.size(); j++)
+			   tail.backend.insertAt(j - i, backend.keyAt(j), backend.infoAt(j));
+		   for (int j = backend.size() - 1; j >= i; j--)
+			   backend.deleteAt(j);
+		   return tail;
+	   }
+	   AVLTree[] parts = tree.listSplit(i+1);
+	   tree = parts[0];
+	   return new TreeList(parts[1]);
+   }
+
+  /**
+   * public TreeList subList(int i, int j)
+   *
+   * removes positions i..j-1 from the list in O(log n) time and returns them as a new list.
+   * returns null if i<0, j>n or i>j.
+   */
+   public TreeList subList(int i, int j)
+   {
+	   if (i < 0 || j > size() || i > j)
+		   return null;
+	   TreeList tail = splitAt(j);
+	   TreeList middle = splitAt(i);
+	   concat(tail);
+	   return middle;
+   }
+
+  /**
+   * public Iterator<Item> iterator()
+   *
+   * returns an iterator over the items of the list, in order.
+   */
+   public Iterator<Item> iterator()
+   {
+	   return listIterator(0);
+   }
+
+  /**
+   * public ListIterator<Item> listIterator(int i)
+   *
+   * returns a bidirectional iterator whose first next() returns the item in the ith position.
+   * Steps with findSuccessor/findPredecessor and shares no state with the list or other iterators;
+   * the list must not be modified while it is in use.
+   * returns null if i<0 or i>n.
+   */
+   public ListIterator<Item> listIterator(int i)
+   {
+	   if (i < 0 || i > size())
+		   return null;
+	   if (backend != null)
+		   return new Itr(null, i);
+	   AVLTree.IAVLNode next = (i < tree.size()) ? AVLTree.select(tree.getRoot(), i+1) : null;
+	   return new Itr(next, i);
+   }
+
+  /**
+   * public ListIterator<Item> listIterator()
+   *
+   * returns a bidirectional iterator starting before the first item.
+   */
+   public ListIterator<Item> listIterator()
+   {
+	   return listIterator(0);
+   }
+
+  /**
+   * private class Itr
+   *
+   * Bidirectional cursor over the list; read-only.
+   * On a backend other than AVL it steps by position (O(log n) per step).
+   */
+   private class Itr implements ListIterator<Item>
+   {
+	   private AVLTree.IAVLNode next; // null when positioned after the last item.
+	   private int nextIndex;
+
+	   Itr(AVLTree.IAVLNode next, int nextIndex)
+	   {
+		   this.next = next;
+		   this.nextIndex = nextIndex;
+	   }
+
+	   public boolean hasNext()
+	   {
+		   if (backend != null)
+			   return nextIndex < backend.size();
+		   return next != null;
+	   }
+
+	   public Item next()
+	   {
+		   if (backend != null)
+		   {
+			   if (nextIndex >= backend.size())
+				   throw new NoSuchElementException();
+			   nextIndex++;
+			   return retrieve(nextIndex - 1);
+		   }
+		   if (next == null)
+			   throw new NoSuchElementException();
+		   AVLTree.IAVLNode x = next;
+		   next = AVLTree.findSuccessor(x);
+		   nextIndex++;
+		   return new Item(x.getKey(), x.getValue());
+	   }
+
+	   public boolean hasPrevious()
+	   {
+		   return nextIndex > 0;
+	   }
+
+	   public Item previous()
+	   {
+		   if (nextIndex == 0)
+			   throw new NoSuchElementException();
+		   if (backend != null)
+			   return retrieve(--nextIndex);
+		   if (next == null)
+			   next = AVLTree.maxInSubTree(tree.getRoot());
+		   else
+			   next = AVLTree.findPredecessor(next);
+		   nextIndex--;
+		   return new Item(next.getKey(), next.getValue());
+	   }
+
+	   public int nextIndex()
+	   {
+		   return nextIndex;
+	   }
+
+	   public int previousIndex()
+	   {
+		   return nextIndex - 1;
+	   }
+
+	   public void remove()
+	   {
+		   throw new UnsupportedOperationException();
+	   }
+
+	   public void set(Item e)
+	   {
+		   throw new UnsupportedOperationException();
+	   }
+
+	   public void add(Item e)
+	   {
+		   throw new UnsupportedOperationException();
+	   }
+   }
+   
+ }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package io.github.noyshabtay.treelist;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ *
+ * Utf8Arena
+ *
+ * An append-only off-heap store for strings. Each string is written as a
+ * 4-byte length followed by its UTF-8 bytes, inside direct pages of PAGE_BYTES
+ * (a longer string gets a page of its own). A string is addressed by a long
+ * reference, page << 32 | offset; -1 stands for null.
+ *
+ * Removed strings are only counted as garbage: their bytes are reclaimed
+ * when the whole arena is closed.
+ *
+ */
+final class Utf8Arena implements AutoCloseable {
+
+	static final long NULL = -1;
+	private static final int PAGE_BYTES = 1 << 20;
+
+	private ByteBuffer[] pages = new ByteBuffer[4];
+	private int pageCount = 0;
+	private int position = PAGE_BYTES; // write offset in the last page; forces a first page.
+	private long allocated = 0;
+	private long garbage = 0;
+
+	/**
+	 * long add(String s)
+	 *
+	 * Copies s into the arena and returns its reference, or NULL for null.
+	 */
+	long add(String s)
+	{
+		if (s == null)
+			return NULL;
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		int need = bytes.length + 4;
+		if (pageCount == 0 || position + need > pages[pageCount - 1].capacity())
+			newPage(need);
+		ByteBuffer page = pages[pageCount - 1];
+		int at = position;
+		page.putInt(at, bytes.length);
+		page.put(at + 4, bytes);
+		position += need;
+		allocated += need;
+		return ((long) (pageCount - 1) << 32) | at;
+	}
+
+	/**
+	 * String get(long ref)
+	 *
+	 * Decodes the string stored at ref, or returns null for NULL.
+	 */
+	String get(long ref)
+	{
+		if (ref == NULL)
+			return null;
+		ByteBuffer page = pages[(int) (ref >>> 32)];
+		int at = (int) ref;
+		byte[] bytes = new byte[page.getInt(at)];
+		page.get(at + 4, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * void remove(long ref)
+	 *
+	 * Marks the string at ref as garbage.
+	 */
+	void remove(long ref)
+	{
+		if (ref != NULL)
+			garbage += pages[(int) (ref >>> 32)].getInt((int) ref) + 4;
+	}
+
+	/**
+	 * long allocatedBytes()
+	 *
+	 * Returns the bytes written so far, garbage included.
+	 */
+	long allocatedBytes()
+	{
+		return allocated;
+	}
+
+	/**
+	 * long garbageBytes()
+	 *
+	 * Returns the bytes taken by removed strings.
+	 */
+	long garbageBytes()
+	{
+		return garbage;
+	}
+
+	/**
+	 * public void close()
+	 *
+	 * Frees every page. The arena must not be used afterwards.
+	 */
+	public void close()
+	{
+		for (int p = 0; p < pageCount; p++)
+		{
+			DirectMemory.free(pages[p]);
+			pages[p] = null;
+		}
+		pageCount = 0;
+		position = PAGE_BYTES;
+	}
+
+	private void newPage(int need)
+	{
+		if (pageCount == pages.length)
+			pages = Arrays.copyOf(pages, pageCount * 2);
+		pages[pageCount++] = ByteBuffer.allocateDirect(Math.max(PAGE_BYTES, need)).order(ByteOrder.nativeOrder());
+		position = 0;
+	}
+}
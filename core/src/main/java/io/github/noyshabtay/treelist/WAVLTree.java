@@ -0,0 +1,160 @@
+package io.github.noyshabtay.treelist;
+
+/**
+ *
+ * WAVLTree
+ *
+ * A positional weak AVL tree (Haeupler, Sen and Tarjan, "Rank-Balanced Trees").
+ * Every node has a rank; a missing child has rank -1. A node's rank exceeds each
+ * child's by 1 or 2, and a leaf has rank 0.
+ *
+ * An insertion does exactly what an AVL insertion does, at most two rotations.
+ * A deletion also rotates at most twice, where an AVL deletion may rotate at
+ * every level. Promotions and demotions stop early too: across a sequence of
+ * operations, the rebalancing steps are O(1) amortized per operation.
+ * The price is height: up to 2 log n, against about 1.44 log n for AVL.
+ *
+ */
+public class WAVLTree extends BalancedListTree {
+
+	/**
+	 * public static WAVLTree fromArray(int[] keys, String[] infos)
+	 *
+	 * Returns a tree whose ith item is (keys[i], infos[i]), built in O(n) time;
+	 * each node's rank is its height.
+	 * Throws IllegalArgumentException if the arrays differ in length.
+	 */
+	public static WAVLTree fromArray(int[] keys, String[] infos)
+	{
+		return build(new WAVLTree(), keys, infos);
+	}
+
+	void initBuilt(Node x, int height, int depth, int treeHeight)
+	{
+		x.rank = (byte) height;
+	}
+
+	/**
+	 * void fixInsert(Node x)
+	 *
+	 * While x is a 0-child: promote its parent if x's sibling is a 1-child,
+	 * and otherwise rotate (single or double) and stop.
+	 */
+	void fixInsert(Node x)
+	{
+		Node p = x.parent;
+		while (p != null && p.rank == x.rank)
+		{
+			Node s = (x == p.left) ? p.right : p.left;
+			if (p.rank - rank(s) == 1) // p is 0,1: promote it.
+			{
+				p.rank++;
+				x = p;
+				p = p.parent;
+				continue;
+			}
+			// p is 0,2.
+			Node z = (x == p.left) ? x.right : x.left; // x's inner child.
+			if (z == null || x.rank - z.rank == 2)
+			{
+				if (x == p.left)
+					rotateRight(p);
+				else
+					rotateLeft(p);
+				p.rank--;
+			}
+			else
+			{
+				if (x == p.left)
+				{
+					rotateLeft(x);
+					rotateRight(p);
+				}
+				else
+				{
+					rotateRight(x);
+					rotateLeft(p);
+				}
+				z.rank++;
+				x.rank--;
+				p.rank--;
+			}
+			return;
+		}
+	}
+
+	/**
+	 * void fixDelete(Node z, Node x, Node p)
+	 *
+	 * Demotes p if it became a 2,2 leaf. Then, while x is a 3-child:
+	 * demote p if x's sibling y is a 2-child, demote both if y is 2,2,
+	 * and otherwise rotate (single or double) and stop.
+	 */
+	void fixDelete(Node z, Node x, Node p)
+	{
+		if (p == null)
+			return;
+		if (p.left == null && p.right == null && p.rank == 1)
+		{
+			p.rank = 0;
+			x = p;
+			p = p.parent;
+		}
+		while (p != null && p.rank - rank(x) == 3)
+		{
+			// x may be null, but then its sibling is not, so the null side is x's.
+			boolean left = (x == p.left);
+			Node y = left ? p.right : p.left;
+			if (p.rank - y.rank == 2)
+			{
+				p.rank--;
+				x = p;
+				p = p.parent;
+				continue;
+			}
+			if (y.rank - rank(y.left) == 2 && y.rank - rank(y.right) == 2)
+			{
+				y.rank--;
+				p.rank--;
+				x = p;
+				p = p.parent;
+				continue;
+			}
+			Node w = left ? y.right : y.left; // y's outer child.
+			if (y.rank - rank(w) == 1)
+			{
+				if (left)
+					rotateLeft(p);
+				else
+					rotateRight(p);
+				y.rank++;
+				p.rank--;
+				if (p.left == null && p.right == null) // a leaf has rank 0.
+					p.rank--;
+			}
+			else
+			{
+				Node v = left ? y.left : y.right; // y's inner child, a 1-child.
+				if (left)
+				{
+					rotateRight(y);
+					rotateLeft(p);
+				}
+				else
+				{
+					rotateLeft(y);
+					rotateRight(p);
+				}
+				v.rank += 2;
+				y.rank--;
+				p.rank -= 2;
+			}
+			return;
+		}
+	}
+
+	static int rank(Node x)
+	{
+		return (x == null) ? -1 : x.rank;
+	}
+}
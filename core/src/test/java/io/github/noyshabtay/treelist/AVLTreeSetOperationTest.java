@@ -0,0 +1,139 @@
+package io.github.noyshabtay.treelist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class AVLTreeSetOperationTest {
+
+	private final Random rnd = new Random(25);
+
+	/**
+	 * Fills a tree (measured by monoid, if not null) and map with n random keys below range.
+	 */
+	private AVLTree fill(TreeMap<Integer, String> map, int n, int range, String tag, Monoid monoid)
+	{
+		AVLTree t = (monoid == null) ? new AVLTree() : new AVLTree(monoid);
+		while (map.size() < n)
+		{
+			int k = rnd.nextInt(range);
+			map.put(k, tag + k);
+			t.insert(k, tag + k);
+		}
+		return t;
+	}
+
+	/**
+	 * Returns the height of x after checking its heights, sizes, balance and parent links.
+	 */
+	private static int checkBalanced(AVLTree.IAVLNode x, AVLTree.IAVLNode parent)
+	{
+		if (x == null)
+			return -1;
+		assertEquals(parent, x.getParent());
+		int hl = checkBalanced(x.getLeft(), x);
+		int hr = checkBalanced(x.getRight(), x);
+		assertTrue(Math.abs(hl - hr) <= 1);
+		assertEquals(Math.max(hl, hr) + 1, x.getHeight());
+		int sl = (x.getLeft() == null) ? 0 : ((AVLTree.AVLNode) x.getLeft()).getSize();
+		int sr = (x.getRight() == null) ? 0 : ((AVLTree.AVLNode) x.getRight()).getSize();
+		assertEquals(sl + sr + 1, ((AVLTree.AVLNode) x).getSize());
+		return x.getHeight();
+	}
+
+	private static void assertHolds(Map<Integer, String> expected, AVLTree t)
+	{
+		checkBalanced(t.getRoot(), null);
+		assertEquals(expected.size(), t.size());
+		assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), t.keysToArray());
+		assertArrayEquals(expected.values().toArray(new String[0]), t.infoToArray());
+	}
+
+	@Test
+	void matchesTreeMap()
+	{
+		// sizes above and below the parallel grain, overlapping and nearly disjoint.
+		int[][] sizes = {{0, 0}, {0, 7}, {7, 0}, {1, 1}, {100, 3}, {3, 100}, {20000, 20000}, {50000, 500}, {500, 50000}};
+		for (int[] n : sizes)
+		{
+			for (AVLTree.Collision c : AVLTree.Collision.values())
+			{
+				int range = Math.max(8, 2 * (n[0] + n[1]));
+				TreeMap<Integer, String> ma = new TreeMap<>();
+				TreeMap<Integer, String> mb = new TreeMap<>();
+
+				AVLTree a = fill(ma, n[0], range, "a", null);
+				AVLTree b = fill(mb, n[1], range, "b", null);
+				TreeMap<Integer, String> union = new TreeMap<>(c == AVLTree.Collision.LEFT ? mb : ma);
+				union.putAll(c == AVLTree.Collision.LEFT ? ma : mb);
+				assertHolds(union, AVLTree.union(a, b, c));
+				assertEquals(0, a.size());
+				assertEquals(0, b.size());
+
+				a = fill(ma = new TreeMap<>(), n[0], range, "a", null);
+				b = fill(mb = new TreeMap<>(), n[1], range, "b", null);
+				TreeMap<Integer, String> both = new TreeMap<>();
+				for (Map.Entry<Integer, String> e : ma.entrySet())
+					if (mb.containsKey(e.getKey()))
+						both.put(e.getKey(), (c == AVLTree.Collision.LEFT) ? e.getValue() : mb.get(e.getKey()));
+				assertHolds(both, AVLTree.intersection(a, b, c));
+
+				a = fill(ma = new TreeMap<>(), n[0], range, "a", null);
+				b = fill(mb = new TreeMap<>(), n[1], range, "b", null);
+				TreeMap<Integer, String> rest = new TreeMap<>(ma);
+				rest.keySet().removeAll(mb.keySet());
+				assertHolds(rest, AVLTree.difference(a, b));
+			}
+		}
+	}
+
+	@Test
+	void measuresFollowTheResult()
+	{
+		Monoid sum = Monoid.sum(Monoid.Measure.KEY);
+		TreeMap<Integer, String> ma = new TreeMap<>();
+		TreeMap<Integer, String> mb = new TreeMap<>();
+		AVLTree t = AVLTree.union(fill(ma, 30000, 100000, "a", sum), fill(mb, 30000, 100000, "b", sum), AVLTree.Collision.RIGHT);
+		ma.putAll(mb);
+		long expected = 0;
+		for (int k : ma.keySet())
+			expected += k;
+		assertEquals(expected, t.aggregate(1, t.size()));
+		t.insert(-1, "x");
+		assertEquals(expected - 1, t.aggregate(1, t.size()));
+	}
+
+	@Test
+	void resultStaysUsable()
+	{
+		TreeMap<Integer, String> ma = new TreeMap<>();
+		TreeMap<Integer, String> mb = new TreeMap<>();
+		AVLTree t = AVLTree.difference(fill(ma, 10000, 40000, "a", null), fill(mb, 10000, 40000, "b", null));
+		ma.keySet().removeAll(mb.keySet());
+		for (int k = 0; k < 40000; k += 3)
+		{
+			if (ma.remove(k) != null)
+				assertTrue(t.delete(k) >= 0);
+		}
+		t.insert(40001, "z");
+		ma.put(40001, "z");
+		assertHolds(ma, t);
+		assertEquals("z", t.search(40001));
+	}
+
+	@Test
+	void invalidArgumentsAreRejected()
+	{
+		AVLTree a = new AVLTree();
+		assertThrows(IllegalArgumentException.class, () -> AVLTree.union(a, a, AVLTree.Collision.LEFT));
+		AVLTree measured = new AVLTree(Monoid.sum(Monoid.Measure.KEY));
+		assertThrows(IllegalArgumentException.class, () -> AVLTree.difference(measured, new AVLTree()));
+	}
+}
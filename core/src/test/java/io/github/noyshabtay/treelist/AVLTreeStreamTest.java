@@ -0,0 +1,87 @@
+package io.github.noyshabtay.treelist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class AVLTreeStreamTest {
+
+	private static final int SORTED_DISTINCT = Spliterator.SORTED | Spliterator.DISTINCT;
+
+	private static AVLTree keyed(int n)
+	{
+		AVLTree t = new AVLTree();
+		Random rnd = new Random(22);
+		while (t.size() < n)
+		{
+			int k = rnd.nextInt(10 * n);
+			t.insert(k, "v" + k);
+		}
+		return t;
+	}
+
+	@Test
+	void keyOrderedTreeIsSortedAndDistinct()
+	{
+		AVLTree t = keyed(1000);
+		Spliterator.OfInt s = t.keySpliterator();
+		assertTrue(s.hasCharacteristics(SORTED_DISTINCT));
+		assertTrue(s.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+		assertEquals(null, s.getComparator());
+		assertTrue(t.spliterator().hasCharacteristics(SORTED_DISTINCT));
+		assertTrue(AVLTree.fromSorted(new int[] {1, 2, 3}, new String[] {"a", "b", "c"}).keySpliterator()
+				.hasCharacteristics(SORTED_DISTINCT));
+	}
+
+	@Test
+	void listTreeIsNeitherSortedNorDistinct()
+	{
+		TreeList list = new TreeList();
+		list.insert(0, 5, "a");
+		list.insert(1, 3, "b");
+		list.insert(2, 5, "c");
+		Spliterator.OfInt s = list.tree.keySpliterator();
+		assertEquals(0, s.characteristics() & SORTED_DISTINCT);
+		assertTrue(s.hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL));
+		assertThrows(IllegalStateException.class, s::getComparator);
+		assertEquals(0, list.tree.spliterator().characteristics() & SORTED_DISTINCT);
+		assertArrayEquals(new int[] {3, 5, 5}, list.tree.keyStream().sorted().toArray());
+		assertArrayEquals(new int[] {5, 3}, list.tree.keyStream().distinct().toArray());
+		assertArrayEquals(new int[] {3, 5}, list.tree.keyStream().parallel().sorted().distinct().toArray());
+	}
+
+	@Test
+	void listBuiltTreesKeepTheFlagHonest()
+	{
+		assertFalse(AVLTree.listFromArray(new int[] {2, 1}, new String[] {"a", "b"}).keySpliterator()
+				.hasCharacteristics(Spliterator.SORTED));
+		AVLTree a = AVLTree.fromSorted(new int[] {1, 2}, new String[] {"a", "b"});
+		AVLTree b = AVLTree.fromSorted(new int[] {0}, new String[] {"c"});
+		a.listConcat(b); // 1, 2, 0
+		assertFalse(a.keySpliterator().hasCharacteristics(Spliterator.SORTED));
+		AVLTree[] parts = a.listSplit(2);
+		assertFalse(parts[1].keySpliterator().hasCharacteristics(Spliterator.SORTED));
+	}
+
+	@Test
+	void parallelExportsMatchSequential()
+	{
+		AVLTree t = keyed(50000);
+		assertArrayEquals(t.keysToArray(), t.parallelKeysToArray());
+		assertArrayEquals(t.infoToArray(), t.parallelInfoToArray());
+		assertArrayEquals(t.keysToArray(), t.keyStream().parallel().toArray());
+		assertEquals(Arrays.stream(t.keysToArray()).asLongStream().sum(), t.parallelReduce(Monoid.sum(Monoid.Measure.KEY)));
+		AtomicLong visited = new AtomicLong();
+		t.parallelForEach((k, s) -> visited.incrementAndGet());
+		assertEquals(t.size(), visited.get());
+	}
+}
@@ -0,0 +1,197 @@
+package io.github.noyshabtay.treelist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.noyshabtay.treelist.BalancedListTree.Node;
+
+class BalancedListTreeTest {
+
+	private static final int STEPS = 6000;
+
+	/**
+	 * Checks x's sizes and parent links and returns its number of items.
+	 */
+	private static int checkLinks(Node x)
+	{
+		if (x == null)
+			return 0;
+		if (x.left != null)
+			assertEquals(x, x.left.parent);
+		if (x.right != null)
+			assertEquals(x, x.right.parent);
+		assertEquals(checkLinks(x.left) + checkLinks(x.right) + 1, x.size);
+		return x.size;
+	}
+
+	/**
+	 * Checks the WAVL rank rule below x and returns x's rank.
+	 */
+	private static int checkRanks(Node x)
+	{
+		if (x == null)
+			return -1;
+		int l = checkRanks(x.left);
+		int r = checkRanks(x.right);
+		assertTrue(x.rank - l == 1 || x.rank - l == 2, "rank difference to the left child");
+		assertTrue(x.rank - r == 1 || x.rank - r == 2, "rank difference to the right child");
+		if (x.left == null && x.right == null)
+			assertEquals(0, x.rank, "leaf rank");
+		return x.rank;
+	}
+
+	/**
+	 * Checks the red-black rules below x and returns x's black height.
+	 */
+	private static int checkColours(Node x)
+	{
+		if (x == null)
+			return 1;
+		if (x.red)
+		{
+			assertFalse(x.left != null && x.left.red, "red node with a red left child");
+			assertFalse(x.right != null && x.right.red, "red node with a red right child");
+		}
+		int l = checkColours(x.left);
+		assertEquals(l, checkColours(x.right), "black height");
+		return l + (x.red ? 0 : 1);
+	}
+
+	private static void checkWAVL(BalancedListTree t)
+	{
+		checkRanks(t.root);
+	}
+
+	private static void checkRedBlack(BalancedListTree t)
+	{
+		assertFalse(t.root != null && t.root.red, "red root");
+		checkColours(t.root);
+	}
+
+	/**
+	 * Runs random listInsert and listDelete on t, which holds the items of expected,
+	 * comparing against expected and checking the invariants after each step.
+	 */
+	private static void fuzz(BalancedListTree t, List<Integer> expected, Consumer<BalancedListTree> invariants, long seed)
+	{
+		Random rnd = new Random(seed);
+		for (int step = 0; step < STEPS; step++)
+		{
+			// grow for the first half, then shrink back.
+			boolean insert = expected.isEmpty() || rnd.nextInt(10) < ((step < STEPS / 2) ? 7 : 3);
+			if (insert)
+			{
+				int i = rnd.nextInt(expected.size() + 1);
+				int k = rnd.nextInt();
+				t.listInsert(i + 1, k, "v" + k);
+				expected.add(i, k);
+			}
+			else
+			{
+				int i = rnd.nextInt(expected.size());
+				t.listDelete(i + 1);
+				expected.remove(i);
+			}
+			if (t.root != null)
+				assertNull(t.root.parent);
+			assertEquals(expected.size(), checkLinks(t.root));
+			invariants.accept(t);
+			if (step % 500 == 0)
+				assertItems(expected, t);
+		}
+		assertItems(expected, t);
+		while (!expected.isEmpty())
+		{
+			t.listDelete(1);
+			expected.remove(0);
+			invariants.accept(t);
+		}
+		assertEquals(0, t.size());
+	}
+
+	private static void assertItems(List<Integer> expected, BalancedListTree t)
+	{
+		assertEquals(expected.size(), t.size());
+		List<Integer> keys = new ArrayList<>();
+		List<String> infos = new ArrayList<>();
+		t.forEach(0, t.size(), (k, s) -> {
+			keys.add(k);
+			infos.add(s);
+		});
+		assertEquals(expected, keys);
+		for (int i = 0; i < keys.size(); i++)
+			assertEquals("v" + keys.get(i), infos.get(i));
+	}
+
+	private static int[] keys(int n)
+	{
+		int[] keys = new int[n];
+		for (int i = 0; i < n; i++)
+			keys[i] = 3 * i;
+		return keys;
+	}
+
+	private static String[] infos(int[] keys)
+	{
+		String[] infos = new String[keys.length];
+		for (int i = 0; i < keys.length; i++)
+			infos[i] = "v" + keys[i];
+		return infos;
+	}
+
+	private static List<Integer> listOf(int[] keys)
+	{
+		List<Integer> list = new ArrayList<>();
+		for (int k : keys)
+			list.add(k);
+		return list;
+	}
+
+	@Test
+	void wavlFromEmpty()
+	{
+		fuzz(new WAVLTree(), new ArrayList<>(), BalancedListTreeTest::checkWAVL, 24);
+	}
+
+	@Test
+	void redBlackFromEmpty()
+	{
+		fuzz(new RedBlackTree(), new ArrayList<>(), BalancedListTreeTest::checkRedBlack, 24);
+	}
+
+	@Test
+	void wavlFromArray()
+	{
+		// sizes that make full, nearly full and lopsided midpoint trees.
+		for (int n : new int[] {0, 1, 2, 3, 6, 7, 8, 100, 1023, 1024, 1500})
+		{
+			int[] keys = keys(n);
+			WAVLTree t = WAVLTree.fromArray(keys, infos(keys));
+			checkLinks(t.root);
+			checkWAVL(t);
+			fuzz(t, listOf(keys), BalancedListTreeTest::checkWAVL, n);
+		}
+	}
+
+	@Test
+	void redBlackFromArray()
+	{
+		for (int n : new int[] {0, 1, 2, 3, 6, 7, 8, 100, 1023, 1024, 1500})
+		{
+			int[] keys = keys(n);
+			RedBlackTree t = RedBlackTree.fromArray(keys, infos(keys));
+			checkLinks(t.root);
+			checkRedBlack(t);
+			fuzz(t, listOf(keys), BalancedListTreeTest::checkRedBlack, n);
+		}
+	}
+}
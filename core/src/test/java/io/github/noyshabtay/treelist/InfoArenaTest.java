@@ -0,0 +1,43 @@
+package io.github.noyshabtay.treelist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class InfoArenaTest {
+
+	@Test
+	void infosReadBack()
+	{
+		AVLTree t = new AVLTree(new InfoArena());
+		for (int k = 0; k < 1000; k++)
+			t.insert(k, (k % 3 == 0) ? null : "v" + k + "ü");
+		for (int k = 0; k < 1000; k++)
+			assertEquals((k % 3 == 0) ? null : "v" + k + "ü", t.search(k));
+	}
+
+	@Test
+	void rejectedInsertStoresNothing()
+	{
+		InfoArena arena = new InfoArena();
+		AVLTree t = new AVLTree(arena);
+		t.insert(1, "first");
+		long stored = arena.storedBytes();
+		for (int j = 0; j < 1000; j++)
+			assertEquals(-1, t.insert(1, "duplicate " + j));
+		assertEquals(stored, arena.storedBytes());
+		assertEquals(1, t.size());
+		assertEquals("first", t.search(1));
+	}
+
+	@Test
+	void listOnArena()
+	{
+		TreeList list = new TreeList(new InfoArena());
+		list.insert(0, 2, "b");
+		list.insert(0, 1, "a");
+		list.insert(2, 3, "c");
+		assertArrayEquals(new String[] {"a", "b", "c"}, list.tree.infoToArray());
+	}
+}
@@ -0,0 +1,232 @@
+package io.github.noyshabtay.treelist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalTest {
+
+	@TempDir
+	Path dir;
+
+	private Path snapshot()
+	{
+		return dir.resolve("tree.snap");
+	}
+
+	private Path journal()
+	{
+		return dir.resolve("tree.journal");
+	}
+
+	private Journal open() throws IOException
+	{
+		return Journal.open(journal(), 1, Journal.SyncPolicy.NONE, 0);
+	}
+
+	private static void assertSameItems(AVLTree expected, AVLTree actual)
+	{
+		assertArrayEquals(expected.keysToArray(), actual.keysToArray());
+		assertArrayEquals(expected.infoToArray(), actual.infoToArray());
+	}
+
+	@Test
+	void replaysKeyedMutations() throws IOException
+	{
+		AVLTree t = new AVLTree();
+		try (Journal j = open())
+		{
+			t.setJournal(j);
+			for (int k = 0; k < 100; k++)
+				t.insert(k, "v" + k);
+			t.delete(7);
+			t.insertAll(new int[] {200, 150}, new String[] {"a", "b"});
+			t.deleteAll(new int[] {1, 2, 3});
+		}
+		assertSameItems(t, Journal.recover(snapshot(), journal()));
+	}
+
+	@Test
+	void journalFollowsSplitAtAndSubList() throws IOException
+	{
+		TreeList list = new TreeList();
+		try (Journal j = open())
+		{
+			list.tree.setJournal(j);
+			for (int k = 0; k < 50; k++)
+				list.insert(list.size(), k, "v" + k);
+			TreeList tail = list.splitAt(30);
+			list.insert(0, 100, "x");
+			TreeList middle = list.subList(5, 10);
+			list.deleteRange(0, 2);
+			list.concat(tail);
+			list.insert(list.size(), 101, "y");
+			middle.concat(list); // list is emptied, and the journal logs it.
+			list.insert(0, 102, "z");
+		}
+		assertSameItems(list.tree, Journal.recover(snapshot(), journal()));
+	}
+
+	@Test
+	void joinLogsItsInputsBeingEmptied() throws IOException
+	{
+		AVLTree t = new AVLTree();
+		AVLTree b = new AVLTree();
+		Path other = dir.resolve("other.journal");
+		try (Journal j = open(); Journal jb = Journal.open(other, 1, Journal.SyncPolicy.NONE, 0))
+		{
+			t.setJournal(j);
+			b.setJournal(jb);
+			for (int k = 0; k < 10; k++)
+			{
+				t.insert(k, "v" + k);
+				b.insert(k + 20, "b" + k);
+			}
+			assertEquals(21, AVLTree.join(t, new AVLTree.AVLNode(15, "p"), b).size());
+			t.insert(7, "w");
+		}
+		assertSameItems(t, Journal.recover(snapshot(), journal()));
+		assertEquals(0, Journal.recover(snapshot(), other).size());
+	}
+
+	@Test
+	void setOperationsLogTheirInputsBeingEmptied() throws IOException
+	{
+		for (int op = 0; op < 3; op++)
+		{
+			AVLTree t = new AVLTree();
+			AVLTree b = new AVLTree();
+			try (Journal j = open())
+			{
+				t.setJournal(j);
+				for (int k = 0; k < 10; k++)
+				{
+					t.insert(k, "v" + k);
+					b.insert(2 * k, "b" + k);
+				}
+				j.checkpoint(t, snapshot());
+				AVLTree result = (op == 0) ? AVLTree.union(t, b, AVLTree.Collision.LEFT)
+						: (op == 1) ? AVLTree.intersection(t, b, AVLTree.Collision.LEFT) : AVLTree.difference(t, b);
+				assertEquals(new int[] {15, 5, 5}[op], result.size());
+				t.insert(7, "w");
+			}
+			assertSameItems(t, Journal.recover(snapshot(), journal()));
+			Files.delete(snapshot());
+			Files.delete(journal());
+		}
+	}
+
+	@Test
+	void tornFinalFrameIsDropped() throws IOException
+	{
+		AVLTree t = new AVLTree();
+		try (Journal j = open())
+		{
+			t.setJournal(j);
+			for (int k = 0; k < 10; k++)
+				t.insert(k, "v" + k);
+		}
+		try (FileChannel ch = FileChannel.open(journal(), StandardOpenOption.WRITE))
+		{
+			ch.truncate(ch.size() - 1);
+		}
+		AVLTree expected = new AVLTree();
+		for (int k = 0; k < 9; k++)
+			expected.insert(k, "v" + k);
+		assertSameItems(expected, Journal.recover(snapshot(), journal()));
+
+		// reopening drops the torn tail and appends after the last whole frame.
+		try (Journal j = open())
+		{
+			expected.setJournal(j);
+			expected.insert(42, "w");
+		}
+		assertSameItems(expected, Journal.recover(snapshot(), journal()));
+	}
+
+	@Test
+	void corruptFinalFrameIsDropped() throws IOException
+	{
+		AVLTree t = new AVLTree();
+		try (Journal j = open())
+		{
+			t.setJournal(j);
+			t.insert(1, "a");
+			t.insert(2, "b");
+		}
+		byte[] bytes = Files.readAllBytes(journal());
+		bytes[bytes.length - 1] ^= 1;
+		Files.write(journal(), bytes);
+		AVLTree expected = new AVLTree();
+		expected.insert(1, "a");
+		assertSameItems(expected, Journal.recover(snapshot(), journal()));
+	}
+
+	@Test
+	void checkpointStartsTheJournalOver() throws IOException
+	{
+		AVLTree t = new AVLTree();
+		try (Journal j = open())
+		{
+			t.setJournal(j);
+			for (int k = 0; k < 20; k++)
+				t.insert(k, "v" + k);
+			j.checkpoint(t, snapshot());
+			t.delete(3);
+			j.checkpoint(t, snapshot());
+			t.insert(99, "late");
+		}
+		assertSameItems(t, Journal.recover(snapshot(), journal()));
+	}
+
+	@Test
+	void crashBetweenSnapshotAndJournalRestart() throws IOException
+	{
+		AVLTree t = new AVLTree();
+		Path old = dir.resolve("old.journal");
+		try (Journal j = open())
+		{
+			t.setJournal(j);
+			for (int k = 0; k < 20; k++)
+				t.insert(k, "v" + k);
+			j.sync();
+			Files.copy(journal(), old);
+			j.checkpoint(t, snapshot());
+		}
+		// the snapshot (tag 1) was saved, but the journal still holds the records it covers (base 0).
+		Files.copy(old, journal(), StandardCopyOption.REPLACE_EXISTING);
+		assertSameItems(t, Journal.recover(snapshot(), journal()));
+	}
+
+	@Test
+	void journalOfAnotherSnapshotIsRejected() throws IOException
+	{
+		AVLTree t = new AVLTree();
+		try (Journal j = open())
+		{
+			t.setJournal(j);
+			t.insert(1, "a");
+			j.checkpoint(t, snapshot());
+			j.checkpoint(t, snapshot());
+		}
+		Path stale = dir.resolve("stale.snap");
+		Files.copy(snapshot(), stale);
+		try (Journal j = open())
+		{
+			j.checkpoint(t, snapshot());
+		}
+		// the journal (base 3) does not follow the snapshot tagged 2.
+		assertThrows(IOException.class, () -> Journal.recover(stale, journal()));
+		assertArrayEquals(new int[] {1}, Journal.recover(snapshot(), journal()).keysToArray());
+	}
+}
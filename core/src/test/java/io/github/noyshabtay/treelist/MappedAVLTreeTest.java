@@ -0,0 +1,97 @@
+package io.github.noyshabtay.treelist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedAVLTreeTest {
+
+	@TempDir
+	Path dir;
+
+	private static void assertSameTree(AVLTree expected, MappedAVLTree actual)
+	{
+		assertEquals(expected.size(), actual.size());
+		assertArrayEquals(expected.keysToArray(), actual.keysToArray());
+		assertArrayEquals(expected.infoToArray(), actual.infoToArray());
+	}
+
+	@Test
+	void roundTrip() throws IOException
+	{
+		AVLTree t = new AVLTree();
+		Random rnd = new Random(13);
+		for (int j = 0; j < 5000; j++)
+		{
+			int k = rnd.nextInt(100000);
+			t.insert(k, (k % 7 == 0) ? "" : "v" + k + "é");
+		}
+		Path p = dir.resolve("tree.snap");
+		t.save(p);
+		try (MappedAVLTree m = MappedAVLTree.open(p))
+		{
+			assertSameTree(t, m);
+			assertEquals(t.min(), m.min());
+			assertEquals(t.max(), m.max());
+			for (int k : t.keysToArray())
+				assertEquals(t.search(k), m.search(k));
+			assertNull(m.search(-1));
+			AVLTree back = m.toAVLTree();
+			assertArrayEquals(t.keysToArray(), back.keysToArray());
+			assertArrayEquals(t.infoToArray(), back.infoToArray());
+		}
+	}
+
+	@Test
+	void emptyTree() throws IOException
+	{
+		Path p = dir.resolve("empty.snap");
+		new AVLTree().save(p);
+		try (MappedAVLTree m = MappedAVLTree.open(p))
+		{
+			assertTrue(m.empty());
+			assertEquals(0, m.size());
+			assertNull(m.search(1));
+			assertEquals(0, m.toAVLTree().size());
+		}
+	}
+
+	@Test
+	void allInfosEmpty() throws IOException
+	{
+		AVLTree t = new AVLTree();
+		t.insert(1, "");
+		t.insert(2, "");
+		Path p = dir.resolve("blank.snap");
+		t.save(p);
+		try (MappedAVLTree m = MappedAVLTree.open(p))
+		{
+			assertEquals("", m.search(1));
+			assertEquals("", m.search(2));
+			assertSameTree(t, m);
+		}
+	}
+
+	@Test
+	void truncatedFileIsRejected() throws IOException
+	{
+		AVLTree t = new AVLTree();
+		for (int k = 0; k < 100; k++)
+			t.insert(k, "v" + k);
+		Path p = dir.resolve("torn.snap");
+		t.save(p);
+		byte[] bytes = Files.readAllBytes(p);
+		Files.write(p, java.util.Arrays.copyOf(bytes, bytes.length - 1));
+		assertThrows(IOException.class, () -> MappedAVLTree.open(p));
+	}
+}
@@ -0,0 +1,140 @@
+package io.github.noyshabtay.treelist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TreeListTest {
+
+	private static TreeList listOf(int... keys)
+	{
+		TreeList list = new TreeList();
+		for (int k : keys)
+			list.insert(list.size(), k, "v" + k);
+		return list;
+	}
+
+	@Test
+	void concatAppendsAndEmptiesOther()
+	{
+		TreeList a = listOf(1, 2, 3);
+		TreeList b = listOf(4, 5);
+		a.concat(b);
+		assertArrayEquals(new int[] {1, 2, 3, 4, 5}, a.tree.keysToArray());
+		assertEquals(0, b.size());
+	}
+
+	@Test
+	void concatWithItselfIsRejected()
+	{
+		TreeList list = listOf(1, 2, 3, 4, 5);
+		assertThrows(IllegalArgumentException.class, () -> list.concat(list));
+		assertEquals(5, list.size());
+		assertArrayEquals(new int[] {1, 2, 3, 4, 5}, list.tree.keysToArray());
+	}
+
+	@Test
+	void listConcatWithItselfIsRejected()
+	{
+		AVLTree t = listOf(1, 2, 3).tree;
+		assertThrows(IllegalArgumentException.class, () -> t.listConcat(t));
+		assertEquals(3, t.size());
+	}
+
+	private static void assertItems(List<Integer> expected, TreeList list)
+	{
+		assertEquals(expected.size(), list.size());
+		List<Integer> keys = new ArrayList<>();
+		list.forEach(0, list.size(), (k, s) -> {
+			assertEquals("v" + k, s);
+			keys.add(k);
+		});
+		assertEquals(expected, keys);
+	}
+
+	/**
+	 * Runs a random mix of insert, delete, insertAll and deleteRange on list against expected:
+	 * growing past several thousand items splits leaves and inner nodes of a B+-tree,
+	 * and shrinking back to empty makes them borrow and merge.
+	 */
+	private static void fuzz(TreeList list, List<Integer> expected, long seed)
+	{
+		Random rnd = new Random(seed);
+		for (int phase = 0; phase < 2; phase++)
+		{
+			boolean grow = phase == 0;
+			while (grow ? expected.size() < 20000 : !expected.isEmpty())
+			{
+				int n = expected.size();
+				int op = rnd.nextInt(10);
+				if (op < (grow ? 5 : 2))
+				{
+					int i = rnd.nextInt(n + 1);
+					int k = rnd.nextInt();
+					assertEquals(0, list.insert(i, k, "v" + k));
+					expected.add(i, k);
+				}
+				else if (op < (grow ? 7 : 6) && n > 0)
+				{
+					int i = rnd.nextInt(n);
+					assertEquals(0, list.delete(i));
+					expected.remove(i);
+				}
+				else if (op < 8)
+				{
+					int i = rnd.nextInt(n + 1);
+					Item[] items = new Item[rnd.nextInt(grow ? 300 : 50)];
+					for (int j = 0; j < items.length; j++)
+					{
+						int k = rnd.nextInt();
+						items[j] = new Item(k, "v" + k);
+						expected.add(i + j, k);
+					}
+					assertEquals(0, list.insertAll(i, items));
+				}
+				else
+				{
+					int i = rnd.nextInt(n + 1);
+					int j = i + rnd.nextInt(Math.min(n - i, grow ? 100 : 400) + 1);
+					assertEquals(0, list.deleteRange(i, j));
+					expected.subList(i, j).clear();
+				}
+				assertEquals(expected.size(), list.size());
+				if (!expected.isEmpty())
+				{
+					int i = rnd.nextInt(expected.size());
+					assertEquals((int) expected.get(i), list.retrieveKey(i));
+				}
+				if (rnd.nextInt(200) == 0)
+					assertItems(expected, list);
+			}
+			assertItems(expected, list);
+		}
+	}
+
+	@Test
+	void bPlusTreeMatchesArrayList()
+	{
+		fuzz(new TreeList(TreeList.Backend.B_PLUS), new ArrayList<>(), 16);
+
+		int[] keys = new int[5000];
+		String[] infos = new String[keys.length];
+		List<Integer> expected = new ArrayList<>();
+		for (int j = 0; j < keys.length; j++)
+		{
+			keys[j] = j;
+			infos[j] = "v" + j;
+			expected.add(j);
+		}
+		TreeList list = TreeList.fromArray(TreeList.Backend.B_PLUS, keys, infos);
+		assertEquals(TreeList.Backend.B_PLUS, list.backend());
+		assertItems(expected, list);
+		fuzz(list, expected, 17);
+	}
+}